@@ -0,0 +1,99 @@
+package gory.algorithm;
+
+import gory.domain.CompactGraph;
+
+/*
+ * Exact diameter by bounding eccentricities (Takes and Kosters). Every breadth first search tightens
+ * lower and upper bounds of all eccentricities and nodes whose eccentricity can no longer change the
+ * diameter are dropped, so usually a handful of searches is enough instead of one per node.
+ */
+public class BoundingDiameters {
+	private CompactGraph graph;
+
+	public BoundingDiameters(CompactGraph graph) {
+		this.graph = graph;
+	}
+
+	/*
+	 * Integer.MAX_VALUE if the graph is empty, has isolated nodes or is not connected
+	 */
+	public int getDiameter() {
+		return getDiameterAtLeast(Integer.MAX_VALUE);
+	}
+
+	/*
+	 * Exact diameter when it is below the threshold, otherwise stops as soon as the diameter
+	 * is known to reach the threshold and returns a lower bound which is at least the threshold
+	 */
+	public int getDiameterAtLeast(int threshold) {
+		int size = graph.getSize();
+		if(size == 0 || graph.hasIsolatedNodes()) return Integer.MAX_VALUE;
+
+		int[] lower = new int[size];
+		int[] upper = new int[size];
+		boolean[] candidates = new boolean[size];
+		for(int i=0; i<size; i++) {
+			upper[i] = Integer.MAX_VALUE;
+			candidates[i] = true;
+		}
+		int numCandidates = size;
+
+		int[] distances = new int[size];
+		int[] queue = new int[size];
+
+		int lowerDiameter = 0, upperDiameter = Integer.MAX_VALUE;
+		boolean pickHighest = false;
+		while(lowerDiameter < upperDiameter && numCandidates > 0) {
+			int node = select(candidates, lower, upper, pickHighest);
+			pickHighest = !pickHighest;
+
+			int reached = graph.getShortestDistances(node, distances, queue);
+			if(reached < size) return Integer.MAX_VALUE;
+
+			int eccentricity = distances[queue[reached - 1]];
+			lowerDiameter = Math.max(lowerDiameter, eccentricity);
+			if(lowerDiameter >= threshold) return lowerDiameter;
+
+			upperDiameter = lowerDiameter;
+			for(int i=0; i<size; i++) {
+				if(!candidates[i]) continue;
+
+				lower[i] = Math.max(lower[i], Math.max(eccentricity - distances[i], distances[i]));
+				upper[i] = Math.min(upper[i], eccentricity + distances[i]);
+				upperDiameter = Math.max(upperDiameter, upper[i]);
+			}
+
+			for(int i=0; i<size; i++) {
+				if(!candidates[i]) continue;
+
+				if(lower[i] == upper[i] || upper[i] <= lowerDiameter && 2 * lower[i] >= upperDiameter) {
+					candidates[i] = false;
+					numCandidates--;
+				}
+			}
+		}
+
+		return lowerDiameter;
+	}
+
+	/*
+	 * Alternates between the largest upper and the smallest lower bound, higher degree breaks ties
+	 */
+	private int select(boolean[] candidates, int[] lower, int[] upper, boolean pickHighest) {
+		int selected = -1;
+		for(int i=0; i<candidates.length; i++) {
+			if(!candidates[i]) continue;
+
+			if(selected < 0) {
+				selected = i;
+				continue;
+			}
+
+			int compare = pickHighest ? Integer.compare(upper[i], upper[selected]) : Integer.compare(lower[selected], lower[i]);
+			if(compare > 0 || compare == 0 && graph.getDegree(i) > graph.getDegree(selected)) {
+				selected = i;
+			}
+		}
+		return selected;
+	}
+}
@@ -0,0 +1,354 @@
+package gory.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import gory.domain.CompactGraph;
+import gory.domain.Graph;
+
+/*
+ * Bron-Kerbosch with degeneracy ordering at the top level and Tomita pivoting below it (Eppstein,
+ * Loffler and Strash). Every top level branch only deals with the neighbourhood of one node, which is
+ * renumbered locally so candidate and excluded sets are small long[] bitsets.
+ * Top level branches are independent, in parallel mode they are spread over the fork join pool.
+ */
+public class BronKerbosch3 {
+	private boolean parallel;
+
+	public BronKerbosch3() {
+		this(false);
+	}
+
+	public BronKerbosch3(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	public Set<Graph> findMaxCliques(Graph graph, Integer maxAllowedDegree) {
+		CompactGraph compactGraph = graph.getCompactGraph();
+
+		Set<Graph> graphs = new LinkedHashSet<>();
+		int[] cnt = new int[1];
+		forEachClique(compactGraph, maxAllowedDegree, (clique, size) -> {
+			// "hanging" cliques come last and keep the last number
+			if(size >= 3) cnt[0]++;
+
+			Graph g = new Graph("Clique "+cnt[0], graph.getConnectionDistance());
+			for(int i=0; i<size; i++) {
+				g.addNode(compactGraph.getNode(clique[i]).cloneIt());
+			}
+			graphs.add(g);
+		});
+
+		return graphs;
+	}
+
+	/*
+	 * Maximal cliques of at least 3 nodes followed by the "hanging" ones: every node without connections
+	 * on its own and every node with a single connection together with its neighbour
+	 */
+	public void forEachClique(CompactGraph graph, Integer maxAllowedDegree, ICliqueVisitor visitor) {
+		ICliqueVisitor largeCliques = (clique, size) -> {
+			if(size >= 3) visitor.visit(clique, size);
+		};
+		int[][] adjacency = getAdjacency(graph, maxAllowedDegree);
+		if(parallel) {
+			for(int[] clique : findCliques(adjacency)) {
+				largeCliques.visit(clique, clique.length);
+			}
+		} else {
+			forEachMaximalClique(adjacency, largeCliques);
+		}
+
+		int[] pair = new int[2];
+		for(int i=0; i<graph.getSize(); i++) {
+			if(graph.getDegree(i) > 1) continue;
+
+			pair[0] = i;
+			if(graph.getDegree(i) == 0) {
+				visitor.visit(pair, 1);
+			} else {
+				pair[1] = graph.getNeighbor(i, 0);
+				visitor.visit(pair, 2);
+			}
+		}
+	}
+
+	/*
+	 * Sorted neighbour ids of every node. With maxAllowedDegree connections of nodes with a higher degree
+	 * are randomly dropped, keeping about maxAllowedDegree of them.
+	 */
+	public int[][] getAdjacency(CompactGraph graph, Integer maxAllowedDegree) {
+		int size = graph.getSize();
+		int[][] adjacency = new int[size][];
+
+		if(maxAllowedDegree == null) {
+			for(int i=0; i<size; i++) {
+				adjacency[i] = Arrays.copyOfRange(graph.getNeighbors(), graph.getOffsets()[i], graph.getOffsets()[i + 1]);
+			}
+			return adjacency;
+		}
+
+		Random randomGenerator = new Random();
+		int[] degrees = new int[size];
+		for(int i=0; i<size; i++) {
+			adjacency[i] = new int[graph.getDegree(i)];
+		}
+		for(int i=0; i<size; i++) {
+			for(int n=0; n<graph.getDegree(i); n++) {
+				int j = graph.getNeighbor(i, n);
+				if(j >= i) break;
+
+				// the decision is made by the node which comes first
+				if(maxAllowedDegree.intValue() < graph.getDegree(j)) {
+					int randomNumber = randomGenerator.nextInt(graph.getDegree(j)) + 1;
+					if(randomNumber > maxAllowedDegree.intValue()) continue;
+				}
+
+				adjacency[i][degrees[i]++] = j;
+				adjacency[j][degrees[j]++] = i;
+			}
+		}
+		for(int i=0; i<size; i++) {
+			adjacency[i] = Arrays.copyOf(adjacency[i], degrees[i]);
+			Arrays.sort(adjacency[i]);
+		}
+
+		return adjacency;
+	}
+
+	/*
+	 * All maximal cliques, including single nodes and pairs. The order is the same in both modes.
+	 */
+	public List<int[]> findCliques(int[][] adjacency) {
+		if(parallel) {
+			int[] order = getDegeneracyOrder(adjacency);
+			return ForkJoinPool.commonPool().invoke(new CliqueTask(adjacency, order, getPositions(order), 0, order.length));
+		}
+
+		List<int[]> cliques = new ArrayList<>();
+		forEachMaximalClique(adjacency, (clique, size) -> cliques.add(Arrays.copyOf(clique, size)));
+		return cliques;
+	}
+
+	/*
+	 * All maximal cliques in the same order as findCliques, without keeping them. Always sequential.
+	 */
+	public void forEachMaximalClique(int[][] adjacency, ICliqueVisitor visitor) {
+		int[] order = getDegeneracyOrder(adjacency);
+		int[] positions = getPositions(order);
+		for(int node : order) {
+			findCliques(adjacency, positions, node, visitor);
+		}
+	}
+
+	/*
+	 * Maximal cliques whose first node in degeneracy order is the given node
+	 */
+	void findCliques(int[][] adjacency, int[] positions, int node, ICliqueVisitor visitor) {
+		int[] local = adjacency[node];
+		int words = (local.length + 63) >>> 6;
+
+		long[][] localAdjacency = new long[local.length][words];
+		for(int i=0; i<local.length; i++) {
+			int[] row = adjacency[local[i]];
+
+			// both rows are sorted
+			int a = 0, b = 0;
+			while(a < row.length && b < local.length) {
+				if(row[a] < local[b]) {
+					a++;
+				} else if(row[a] > local[b]) {
+					b++;
+				} else {
+					localAdjacency[i][b >>> 6] |= 1L << b;
+					a++;
+					b++;
+				}
+			}
+		}
+
+		long[] candidates = new long[words];
+		long[] excluded = new long[words];
+		for(int i=0; i<local.length; i++) {
+			if(positions[local[i]] > positions[node]) {
+				candidates[i >>> 6] |= 1L << i;
+			} else {
+				excluded[i >>> 6] |= 1L << i;
+			}
+		}
+
+		int[] clique = new int[local.length + 1];
+		clique[0] = node;
+		expand(clique, 1, candidates, excluded, localAdjacency, local, visitor);
+	}
+
+	private void expand(int[] clique, int depth, long[] candidates, long[] excluded, long[][] localAdjacency, int[] local, ICliqueVisitor visitor) {
+		if(isEmpty(candidates)) {
+			if(isEmpty(excluded)) {
+				visitor.visit(clique, depth);
+			}
+			return;
+		}
+
+		// pivot with the most candidates among its neighbours, only the rest has to be branched on
+		int pivot = -1, pivotCount = -1;
+		for(int w=0; w<candidates.length; w++) {
+			for(long bits=candidates[w] | excluded[w]; bits!=0; bits&=bits-1) {
+				int u = (w << 6) + Long.numberOfTrailingZeros(bits);
+				int count = countCommon(candidates, localAdjacency[u]);
+				if(count > pivotCount) {
+					pivot = u;
+					pivotCount = count;
+				}
+			}
+		}
+
+		long[] branches = new long[candidates.length];
+		for(int w=0; w<candidates.length; w++) {
+			branches[w] = candidates[w] & ~localAdjacency[pivot][w];
+		}
+
+		for(int w=0; w<branches.length; w++) {
+			for(long bits=branches[w]; bits!=0; bits&=bits-1) {
+				int v = (w << 6) + Long.numberOfTrailingZeros(bits);
+				long[] row = localAdjacency[v];
+
+				long[] newCandidates = new long[candidates.length];
+				long[] newExcluded = new long[candidates.length];
+				for(int k=0; k<candidates.length; k++) {
+					newCandidates[k] = candidates[k] & row[k];
+					newExcluded[k] = excluded[k] & row[k];
+				}
+
+				clique[depth] = local[v];
+				expand(clique, depth + 1, newCandidates, newExcluded, localAdjacency, local, visitor);
+
+				candidates[w] &= ~(1L << v);
+				excluded[w] |= 1L << v;
+			}
+		}
+	}
+
+	/*
+	 * Repeatedly takes out a node of the smallest remaining degree
+	 */
+	public static int[] getDegeneracyOrder(int[][] adjacency) {
+		int size = adjacency.length;
+		int maxDegree = 0;
+		int[] degrees = new int[size];
+		for(int i=0; i<size; i++) {
+			degrees[i] = adjacency[i].length;
+			maxDegree = Math.max(maxDegree, degrees[i]);
+		}
+
+		// nodes sorted by degree, bucketStarts[d] is where nodes of degree d begin
+		int[] bucketStarts = new int[maxDegree + 2];
+		for(int degree : degrees) {
+			bucketStarts[degree + 1]++;
+		}
+		for(int d=1; d<bucketStarts.length; d++) {
+			bucketStarts[d] += bucketStarts[d - 1];
+		}
+		int[] sorted = new int[size];
+		int[] positions = new int[size];
+		int[] next = Arrays.copyOf(bucketStarts, bucketStarts.length);
+		for(int i=0; i<size; i++) {
+			positions[i] = next[degrees[i]]++;
+			sorted[positions[i]] = i;
+		}
+
+		for(int i=0; i<size; i++) {
+			int node = sorted[i];
+			for(int neighbor : adjacency[node]) {
+				if(positions[neighbor] <= i) continue;
+
+				// move the neighbour to the front of its bucket and shrink its degree
+				int degree = degrees[neighbor];
+				int first = Math.max(bucketStarts[degree], i + 1);
+				int other = sorted[first];
+				if(other != neighbor) {
+					sorted[first] = neighbor;
+					sorted[positions[neighbor]] = other;
+					positions[other] = positions[neighbor];
+					positions[neighbor] = first;
+				}
+				bucketStarts[degree] = first + 1;
+				degrees[neighbor]--;
+			}
+		}
+
+		return sorted;
+	}
+
+	static int[] getPositions(int[] order) {
+		int[] positions = new int[order.length];
+		for(int i=0; i<order.length; i++) {
+			positions[order[i]] = i;
+		}
+		return positions;
+	}
+
+	private static boolean isEmpty(long[] bits) {
+		for(long word : bits) {
+			if(word != 0) return false;
+		}
+		return true;
+	}
+
+	private static int countCommon(long[] bits1, long[] bits2) {
+		int count = 0;
+		for(int w=0; w<bits1.length; w++) {
+			count += Long.bitCount(bits1[w] & bits2[w]);
+		}
+		return count;
+	}
+
+	/*
+	 * Top level branches from..to-1 of the degeneracy order, every task fills its own list
+	 * and results are joined in order
+	 */
+	private class CliqueTask extends RecursiveTask<List<int[]>> {
+		private static final long serialVersionUID = 1L;
+
+		// number of top level branches below which a task stops splitting
+		private static final int THRESHOLD = 16;
+
+		private int[][] adjacency;
+		private int[] order;
+		private int[] positions;
+		private int from, to;
+
+		private CliqueTask(int[][] adjacency, int[] order, int[] positions, int from, int to) {
+			this.adjacency = adjacency;
+			this.order = order;
+			this.positions = positions;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected List<int[]> compute() {
+			if(to - from > THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				CliqueTask left = new CliqueTask(adjacency, order, positions, from, middle);
+				CliqueTask right = new CliqueTask(adjacency, order, positions, middle, to);
+				left.fork();
+				List<int[]> cliques = right.compute();
+				cliques.addAll(0, left.join());
+				return cliques;
+			}
+
+			List<int[]> cliques = new ArrayList<>();
+			for(int i=from; i<to; i++) {
+				findCliques(adjacency, positions, order[i], (clique, size) -> cliques.add(Arrays.copyOf(clique, size)));
+			}
+			return cliques;
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package gory.algorithm;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import gory.domain.CompactGraph;
+import lombok.Getter;
+
+/*
+ * Number of cliques by size, counting the same cliques Graph.getCliques returns, and the largest
+ * of their sizes. Cliques are only counted, never kept, and every node of the degeneracy order is
+ * searched as a separate parallel task.
+ */
+public class CliqueStatistics {
+	// index is the clique size
+	private int[] countBySize;
+
+	// largest size in countBySize, 0 when there are no cliques
+	@Getter
+	private int maxCliqueSize;
+
+	public CliqueStatistics(CompactGraph graph) {
+		BronKerbosch3 algorithm = new BronKerbosch3();
+		int[][] adjacency = algorithm.getAdjacency(graph, null);
+		int[] order = BronKerbosch3.getDegeneracyOrder(adjacency);
+		int[] positions = BronKerbosch3.getPositions(order);
+
+		// maximal cliques of every size, pairs and single nodes are only used for the largest size
+		int[][] histogram = IntStream.range(0, order.length).parallel().collect(
+				() -> new int[][] { new int[4] },
+				(h, i) -> algorithm.findCliques(adjacency, positions, order[i], (clique, size) -> add(h, size, 1)),
+				(h1, h2) -> {
+					for(int size=0; size<h2[0].length; size++) {
+						add(h1, size, h2[0][size]);
+					}
+				});
+
+		countBySize = Arrays.copyOf(histogram[0], Math.max(histogram[0].length, 3));
+		countBySize[1] = 0;
+		countBySize[2] = 0;
+
+		// "hanging" cliques
+		for(int i=0; i<graph.getSize(); i++) {
+			if(graph.getDegree(i) <= 1) {
+				countBySize[graph.getDegree(i) + 1]++;
+			}
+		}
+
+		// pairs which are not hanging are not cliques of getCliques, so they do not count here either
+		maxCliqueSize = countBySize.length - 1;
+		while(maxCliqueSize > 0 && countBySize[maxCliqueSize] == 0) maxCliqueSize--;
+		countBySize = Arrays.copyOf(countBySize, Math.max(maxCliqueSize + 1, 3));
+	}
+
+	/*
+	 * Index is the clique size, the returned array is shared and must not be modified
+	 */
+	public int[] getCountBySize() {
+		return countBySize;
+	}
+
+	public int getNumberOfCliques() {
+		int numCliques = 0;
+		for(int count : countBySize) {
+			numCliques += count;
+		}
+		return numCliques;
+	}
+
+	private static void add(int[][] histogram, int size, int count) {
+		if(count == 0) return;
+
+		if(size >= histogram[0].length) {
+			histogram[0] = Arrays.copyOf(histogram[0], Math.max(size + 1, 2 * histogram[0].length));
+		}
+		histogram[0][size] += count;
+	}
+}
@@ -0,0 +1,124 @@
+package gory.algorithm;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import gory.domain.CompactGraph;
+import lombok.Getter;
+
+/*
+ * Graph energy, the trace of |A|, estimated by stochastic Lanczos quadrature. For every random +-1
+ * probe vector z a few plain Lanczos steps from z give a Gauss quadrature of z'|A|z, and the average
+ * over probes is an unbiased estimate of the trace (Hutchinson). Each probe costs steps sweeps over
+ * the connections and probes run in parallel.
+ */
+public class EnergyEstimate {
+	// normal quantile of the reported 95% confidence interval
+	private static final double Z_95 = 1.96;
+
+	// one fixed seed keeps estimates of the same graph reproducible from run to run
+	private static final long SEED = 0x5DEECE66DL;
+
+	@Getter
+	private double energy;
+
+	// standard deviation of the estimate itself, 0 with a single probe
+	@Getter
+	private double standardError;
+
+	public EnergyEstimate(CompactGraph graph, int probes, int steps) {
+		if(probes < 1 || steps < 1) throw new IllegalArgumentException("Energy needs at least one probe and one step, not "+probes+" and "+steps);
+
+		Lanczos lanczos = Lanczos.forGraph(graph, false);
+
+		// probe seeds drawn from one generator, neighbouring seeds would give correlated first bits
+		long[] seeds = new Random(SEED).longs(probes).toArray();
+		double[] estimates = IntStream.range(0, probes).parallel()
+				.mapToDouble(probe -> getQuadrature(lanczos, graph.getSize(), steps, new Random(seeds[probe])))
+				.toArray();
+
+		for(double estimate : estimates) {
+			energy += estimate;
+		}
+		energy /= probes;
+
+		if(probes > 1) {
+			double variance = 0;
+			for(double estimate : estimates) {
+				variance += (estimate - energy) * (estimate - energy);
+			}
+			variance /= probes - 1;
+			standardError = Math.sqrt(variance / probes);
+		}
+	}
+
+	public double getLowerBound() {
+		return energy - Z_95 * standardError;
+	}
+
+	public double getUpperBound() {
+		return energy + Z_95 * standardError;
+	}
+
+	/*
+	 * z'|A|z for a random +-1 vector z
+	 */
+	private static double getQuadrature(Lanczos lanczos, int size, int steps, Random random) {
+		if(size == 0) return 0;
+
+		double[] alpha = new double[steps];
+		double[] beta = new double[steps];
+
+		double[] previous = new double[size];
+		double[] current = new double[size];
+		double[] next = new double[size];
+		for(int i=0; i<size; i++) {
+			current[i] = (random.nextBoolean() ? 1 : -1) / Math.sqrt(size);
+		}
+
+		int k = 0;
+		while(k < steps) {
+			lanczos.multiply(current, next);
+			double a = 0;
+			for(int i=0; i<size; i++) {
+				a += next[i] * current[i];
+			}
+			alpha[k] = a;
+
+			double b = 0;
+			for(int i=0; i<size; i++) {
+				next[i] -= a * current[i] + (k > 0 ? beta[k - 1] * previous[i] : 0);
+				b += next[i] * next[i];
+			}
+			b = Math.sqrt(b);
+			k++;
+
+			// a vanishing residual means the Krylov space is exhausted and the quadrature exact
+			if(k == steps || b < 1e-10) break;
+
+			beta[k - 1] = b;
+			for(int i=0; i<size; i++) {
+				next[i] /= b;
+			}
+			double[] tmp = previous;
+			previous = current;
+			current = next;
+			next = tmp;
+		}
+
+		// nodes are the eigenvalues, weights the squared first components of the eigenvectors
+		double[] diagonal = Arrays.copyOf(alpha, k);
+		double[] offDiagonal = Arrays.copyOf(beta, k);
+		offDiagonal[k - 1] = 0;
+		double[] firstRow = new double[k];
+		firstRow[0] = 1;
+		Lanczos.solveTridiagonal(diagonal, offDiagonal, firstRow);
+
+		double quadrature = 0;
+		for(int i=0; i<k; i++) {
+			quadrature += firstRow[i] * firstRow[i] * Math.abs(diagonal[i]);
+		}
+		return size * quadrature;
+	}
+}
@@ -0,0 +1,9 @@
+package gory.algorithm;
+
+/*
+ * Receives cliques one by one as ids of a CompactGraph. The array is reused for the next clique,
+ * only its first size elements belong to the current one.
+ */
+public interface ICliqueVisitor {
+	void visit(int[] clique, int size);
+}
@@ -0,0 +1,328 @@
+package gory.algorithm;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import gory.domain.CompactGraph;
+
+/*
+ * Eigenvalues of the adjacency or Laplacian matrix of a graph by Lanczos iteration over the compressed
+ * rows, a dense matrix is never built. Lanczos vectors are fully reorthogonalised, so the tridiagonal
+ * matrix keeps the eigenvalues of the original one. When the Krylov space is exhausted the iteration
+ * restarts from a new orthogonal vector, which is how repeated eigenvalues are found.
+ */
+public class Lanczos {
+	private static final double TOLERANCE = 1e-10;
+
+	// steps between convergence checks when only the smallest eigenvalue is needed
+	private static final int CHECK_EVERY = 10;
+
+	private CompactGraph graph;
+
+	// nodes of one connected component, locals[] maps graph ids back to positions in it
+	private int[] nodes;
+	private int[] locals;
+
+	private boolean laplacian;
+
+	// bound of the largest absolute eigenvalue
+	private double scale;
+
+	private Random random = new Random(1);
+
+	private Lanczos(CompactGraph graph, int[] nodes, int[] locals, boolean laplacian) {
+		this.graph = graph;
+		this.nodes = nodes;
+		this.locals = locals;
+		this.laplacian = laplacian;
+
+		int maxDegree = 0;
+		for(int node : nodes) {
+			maxDegree = Math.max(maxDegree, graph.getDegree(node));
+		}
+		scale = Math.max(1, laplacian ? 2 * maxDegree : maxDegree);
+	}
+
+	/*
+	 * Iteration over the whole graph
+	 */
+	static Lanczos forGraph(CompactGraph graph, boolean laplacian) {
+		int[] nodes = new int[graph.getSize()];
+		for(int i=0; i<nodes.length; i++) {
+			nodes[i] = i;
+		}
+		return new Lanczos(graph, nodes, nodes, laplacian);
+	}
+
+	/*
+	 * All eigenvalues in ascending order, each connected component is solved on its own
+	 */
+	public static double[] getSpectrum(CompactGraph graph, boolean laplacian) {
+		double[] spectrum = new double[graph.getSize()];
+		int count = 0;
+		for(int[] component : getComponents(graph)) {
+			double[] eigenvalues;
+			if(component.length == 1) {
+				eigenvalues = new double[] { 0 };
+			} else {
+				Lanczos lanczos = new Lanczos(graph, component, getLocals(graph, component), laplacian);
+				eigenvalues = lanczos.run(component.length, null, false);
+			}
+			System.arraycopy(eigenvalues, 0, spectrum, count, eigenvalues.length);
+			count += eigenvalues.length;
+		}
+		Arrays.sort(spectrum);
+		return spectrum;
+	}
+
+	/*
+	 * Sum of absolute eigenvalues of the adjacency matrix
+	 */
+	public static double getEnergy(CompactGraph graph) {
+		double energy = 0;
+		for(double eigenvalue : getSpectrum(graph, false)) {
+			energy += Math.abs(eigenvalue);
+		}
+		return energy;
+	}
+
+	/*
+	 * Second smallest eigenvalue of the Laplacian, 0 if the graph has less than 2 nodes or is not connected
+	 */
+	public static double getAlgebraicConnectivity(CompactGraph graph) {
+		int size = graph.getSize();
+		if(size < 2) return 0;
+
+		int[] distances = new int[size];
+		int[] queue = new int[size];
+		if(graph.getShortestDistances(0, distances, queue) < size) return 0;
+
+		// the constant vector belongs to eigenvalue 0, the rest of the spectrum is orthogonal to it
+		double[] constant = new double[size];
+		Arrays.fill(constant, 1 / Math.sqrt(size));
+
+		double[] eigenvalues = forGraph(graph, true).run(size - 1, constant, true);
+		return Math.max(0, eigenvalues[0]);
+	}
+
+	/*
+	 * Eigenvalues in ascending order of the tridiagonal matrix after at most maxSteps steps, orthogonal
+	 * to the unit vector excluded if given. With smallestOnly it stops as soon as the smallest one converges.
+	 */
+	private double[] run(int maxSteps, double[] excluded, boolean smallestOnly) {
+		int n = nodes.length;
+		double[][] vectors = new double[maxSteps][];
+		double[] alpha = new double[maxSteps];
+		double[] beta = new double[maxSteps];
+
+		double[] v = getStartVector(vectors, 0, excluded);
+		int steps = 0;
+		while(true) {
+			vectors[steps] = v;
+			double[] w = new double[n];
+			multiply(v, w);
+			alpha[steps] = dot(w, v);
+
+			// twice is enough to keep the vectors orthogonal to working precision
+			for(int pass=0; pass<2; pass++) {
+				orthogonalize(w, vectors, steps + 1, excluded);
+			}
+			steps++;
+			if(steps == maxSteps) break;
+
+			double norm = Math.sqrt(dot(w, w));
+			if(smallestOnly && steps % CHECK_EVERY == 0) {
+				double[] diagonal = Arrays.copyOf(alpha, steps);
+				double[] offDiagonal = Arrays.copyOf(beta, steps);
+				offDiagonal[steps - 1] = 0;
+				double[] lastRow = new double[steps];
+				lastRow[steps - 1] = 1;
+				solveTridiagonal(diagonal, offDiagonal, lastRow);
+
+				int smallest = 0;
+				for(int i=1; i<steps; i++) {
+					if(diagonal[i] < diagonal[smallest]) smallest = i;
+				}
+				if(norm * Math.abs(lastRow[smallest]) <= TOLERANCE * scale) {
+					return new double[] { diagonal[smallest] };
+				}
+			}
+
+			if(norm <= TOLERANCE * scale) {
+				beta[steps - 1] = 0;
+				v = getStartVector(vectors, steps, excluded);
+			} else {
+				beta[steps - 1] = norm;
+				for(int i=0; i<n; i++) {
+					w[i] /= norm;
+				}
+				v = w;
+			}
+		}
+
+		double[] diagonal = Arrays.copyOf(alpha, steps);
+		double[] offDiagonal = Arrays.copyOf(beta, steps);
+		offDiagonal[steps - 1] = 0;
+		solveTridiagonal(diagonal, offDiagonal, null);
+		Arrays.sort(diagonal);
+		return diagonal;
+	}
+
+	/*
+	 * Random unit vector orthogonal to the first count vectors and to excluded
+	 */
+	private double[] getStartVector(double[][] vectors, int count, double[] excluded) {
+		int n = nodes.length;
+		while(true) {
+			double[] v = new double[n];
+			for(int i=0; i<n; i++) {
+				v[i] = random.nextDouble() - 0.5;
+			}
+			for(int pass=0; pass<2; pass++) {
+				orthogonalize(v, vectors, count, excluded);
+			}
+
+			double norm = Math.sqrt(dot(v, v));
+			if(norm > TOLERANCE) {
+				for(int i=0; i<n; i++) {
+					v[i] /= norm;
+				}
+				return v;
+			}
+		}
+	}
+
+	private static void orthogonalize(double[] w, double[][] vectors, int count, double[] excluded) {
+		if(excluded != null) {
+			subtract(w, excluded);
+		}
+		for(int k=0; k<count; k++) {
+			subtract(w, vectors[k]);
+		}
+	}
+
+	// w -= (w.v) v for a unit vector v
+	private static void subtract(double[] w, double[] v) {
+		double projection = dot(w, v);
+		for(int i=0; i<w.length; i++) {
+			w[i] -= projection * v[i];
+		}
+	}
+
+	private static double dot(double[] x, double[] y) {
+		double sum = 0;
+		for(int i=0; i<x.length; i++) {
+			sum += x[i] * y[i];
+		}
+		return sum;
+	}
+
+	// y = M x
+	void multiply(double[] x, double[] y) {
+		for(int i=0; i<nodes.length; i++) {
+			int node = nodes[i];
+			double sum = 0;
+			for(int n=0; n<graph.getDegree(node); n++) {
+				sum += x[locals[graph.getNeighbor(node, n)]];
+			}
+			y[i] = laplacian ? graph.getDegree(node) * x[i] - sum : sum;
+		}
+	}
+
+	/*
+	 * Eigenvalues of a symmetric tridiagonal matrix by the implicit QL method, offDiagonal[i] couples
+	 * i and i+1 and its last element is 0. Both arrays are overwritten, eigenvalues end up in diagonal.
+	 * If given, row is a row of the eigenvector matrix and is rotated along: starting from the last unit
+	 * vector it ends up holding the last components of the eigenvectors.
+	 */
+	static void solveTridiagonal(double[] diagonal, double[] offDiagonal, double[] row) {
+		double[] d = diagonal, e = offDiagonal;
+		int n = d.length;
+		for(int l=0; l<n; l++) {
+			int iterations = 0;
+			int m;
+			do {
+				for(m=l; m<n-1; m++) {
+					double dd = Math.abs(d[m]) + Math.abs(d[m + 1]);
+					if(Math.abs(e[m]) + dd == dd) break;
+				}
+				if(m == l) break;
+
+				if(iterations++ == 60) throw new ArithmeticException("Tridiagonal QL did not converge");
+
+				double g = (d[l + 1] - d[l]) / (2 * e[l]);
+				double r = Math.hypot(g, 1);
+				g = d[m] - d[l] + e[l] / (g + Math.copySign(r, g));
+				double s = 1, c = 1, p = 0;
+				int i;
+				for(i=m-1; i>=l; i--) {
+					double f = s * e[i];
+					double b = c * e[i];
+					r = Math.hypot(f, g);
+					e[i + 1] = r;
+					if(r == 0) {
+						// underflow, start this eigenvalue over
+						d[i + 1] -= p;
+						e[m] = 0;
+						break;
+					}
+					s = f / r;
+					c = g / r;
+					g = d[i + 1] - p;
+					r = (d[i] - g) * s + 2 * c * b;
+					p = s * r;
+					d[i + 1] = g + p;
+					g = c * r - b;
+
+					if(row != null) {
+						f = row[i + 1];
+						row[i + 1] = s * row[i] + c * f;
+						row[i] = c * row[i] - s * f;
+					}
+				}
+				if(r == 0 && i >= l) continue;
+
+				d[l] -= p;
+				e[l] = g;
+				e[m] = 0;
+			} while(true);
+		}
+	}
+
+	private static int[] getLocals(CompactGraph graph, int[] component) {
+		int[] locals = new int[graph.getSize()];
+		for(int i=0; i<component.length; i++) {
+			locals[component[i]] = i;
+		}
+		return locals;
+	}
+
+	private static int[][] getComponents(CompactGraph graph) {
+		int size = graph.getSize();
+		int[] queue = new int[size];
+		boolean[] seen = new boolean[size];
+
+		int[][] components = new int[size][];
+		int count = 0, tail = 0;
+		for(int i=0; i<size; i++) {
+			if(seen[i]) continue;
+
+			int head = tail;
+			int start = tail;
+			seen[i] = true;
+			queue[tail++] = i;
+			while(head < tail) {
+				int node = queue[head++];
+				for(int n=0; n<graph.getDegree(node); n++) {
+					int neighbor = graph.getNeighbor(node, n);
+					if(!seen[neighbor]) {
+						seen[neighbor] = true;
+						queue[tail++] = neighbor;
+					}
+				}
+			}
+			components[count++] = Arrays.copyOfRange(queue, start, tail);
+		}
+		return Arrays.copyOf(components, count);
+	}
+}
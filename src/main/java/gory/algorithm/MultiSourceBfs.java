@@ -0,0 +1,129 @@
+package gory.algorithm;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import gory.domain.CompactGraph;
+
+/*
+ * All pairs breadth first search over an unweighted graph. Sources are processed in batches of 64,
+ * bit i of a node's word telling whether the i-th source of the batch has reached the node, so one
+ * sweep over the adjacency advances 64 searches at once. Connections are assumed to be symmetric.
+ */
+public class MultiSourceBfs {
+	private static final int BATCH_SIZE = 64;
+
+	private CompactGraph graph;
+
+	// number of ordered pairs (source, target) at the given distance, distance 0 is not counted
+	private long[] distanceHistogram;
+
+	// -1 for nodes without connections
+	private int[] eccentricities;
+
+	// number of nodes reachable from the source, not counting the source
+	private int[] reachedCounts;
+
+	public MultiSourceBfs(CompactGraph graph) {
+		this.graph = graph;
+
+		int size = graph.getSize();
+		eccentricities = new int[size];
+		reachedCounts = new int[size];
+
+		int numBatches = (size + BATCH_SIZE - 1) / BATCH_SIZE;
+		distanceHistogram = IntStream.range(0, numBatches).parallel()
+				.mapToObj(batch -> runBatch(batch * BATCH_SIZE, Math.min(size, (batch + 1) * BATCH_SIZE)))
+				.reduce(new long[0], MultiSourceBfs::add);
+	}
+
+	public CompactGraph getGraph() {
+		return graph;
+	}
+
+	/*
+	 * Index is the distance, the returned array is shared and must not be modified
+	 */
+	public long[] getDistanceHistogram() {
+		return distanceHistogram;
+	}
+
+	public int getEccentricity(int node) {
+		return eccentricities[node];
+	}
+
+	public int getReachedCount(int node) {
+		return reachedCounts[node];
+	}
+
+	private long[] runBatch(int from, int to) {
+		int size = graph.getSize();
+		int[] offsets = graph.getOffsets();
+		int[] neighbors = graph.getNeighbors();
+
+		long[] seen = new long[size];
+		long[] frontier = new long[size];
+		long[] next = new long[size];
+		for(int source=from; source<to; source++) {
+			long bit = 1L << (source - from);
+			seen[source] |= bit;
+			frontier[source] |= bit;
+			eccentricities[source] = graph.getDegree(source) == 0 ? -1 : 0;
+		}
+
+		long[] histogram = new long[16];
+		int distance = 0;
+		boolean advanced = true;
+		while(advanced) {
+			distance++;
+			advanced = false;
+
+			long reachedSources = 0;
+			long reachedPairs = 0;
+			for(int node=0; node<size; node++) {
+				long visit = 0;
+				for(int k=offsets[node]; k<offsets[node + 1]; k++) {
+					visit |= frontier[neighbors[k]];
+				}
+				visit &= ~seen[node];
+				next[node] = visit;
+
+				if(visit != 0) {
+					seen[node] |= visit;
+					reachedSources |= visit;
+					reachedPairs += Long.bitCount(visit);
+
+					for(long bits=visit; bits!=0; bits&=bits-1) {
+						reachedCounts[from + Long.numberOfTrailingZeros(bits)]++;
+					}
+				}
+			}
+
+			if(reachedPairs > 0) {
+				advanced = true;
+				if(distance >= histogram.length) {
+					histogram = Arrays.copyOf(histogram, 2 * histogram.length);
+				}
+				histogram[distance] = reachedPairs;
+
+				for(long bits=reachedSources; bits!=0; bits&=bits-1) {
+					eccentricities[from + Long.numberOfTrailingZeros(bits)] = distance;
+				}
+			}
+
+			long[] tmp = frontier;
+			frontier = next;
+			next = tmp;
+		}
+
+		return histogram;
+	}
+
+	private static long[] add(long[] histogram1, long[] histogram2) {
+		long[] sum = Arrays.copyOf(histogram1, Math.max(histogram1.length, histogram2.length));
+		for(int i=0; i<histogram2.length; i++) {
+			sum[i] += histogram2[i];
+		}
+		return sum;
+	}
+}
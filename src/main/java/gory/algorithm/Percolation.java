@@ -0,0 +1,173 @@
+package gory.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import gory.domain.CompactGraph;
+
+/*
+ * Connected components of a graph while nodes are removed in a given order. The order is replayed
+ * backwards: nodes are put back one by one and joined with a union-find, so every step costs about
+ * the number of connections of its nodes instead of a search over the whole graph.
+ */
+public class Percolation {
+	// nodes removed by every step, no node is removed twice
+	private int[][] steps;
+
+	// state after the given number of steps, from 0 to steps.length
+	private int[] numberOfComponents;
+	private int[] largestComponentSizes;
+	private int[] numberOfNodes;
+
+	private int[] parents;
+	private int[] sizes;
+
+	public Percolation(CompactGraph graph, int[][] steps) {
+		this.steps = steps;
+
+		int size = graph.getSize();
+		parents = new int[size];
+		sizes = new int[size];
+		numberOfComponents = new int[steps.length + 1];
+		largestComponentSizes = new int[steps.length + 1];
+		numberOfNodes = new int[steps.length + 1];
+
+		boolean[] removed = new boolean[size];
+		for(int[] step : steps) {
+			for(int node : step) {
+				removed[node] = true;
+			}
+		}
+
+		// sizes[] of absent nodes stays 0
+		int components = 0, largest = 0, nodes = 0;
+		for(int k=steps.length; k>=0; k--) {
+			int[] added = k == steps.length ? null : steps[k];
+			for(int i=0; i<(added == null ? size : added.length); i++) {
+				int node = added == null ? i : added[i];
+				if(added == null && removed[node]) continue;
+
+				parents[node] = node;
+				sizes[node] = 1;
+				nodes++;
+				components++;
+				for(int n=0; n<graph.getDegree(node); n++) {
+					int neighbor = graph.getNeighbor(node, n);
+					if(sizes[neighbor] == 0) continue;
+
+					int root1 = find(node), root2 = find(neighbor);
+					if(root1 == root2) continue;
+
+					if(sizes[root1] < sizes[root2]) {
+						int root = root1;
+						root1 = root2;
+						root2 = root;
+					}
+					parents[root2] = root1;
+					sizes[root1] += sizes[root2];
+					components--;
+				}
+				largest = Math.max(largest, sizes[find(node)]);
+			}
+
+			numberOfComponents[k] = components;
+			largestComponentSizes[k] = largest;
+			numberOfNodes[k] = nodes;
+		}
+
+		parents = null;
+		sizes = null;
+	}
+
+	private int find(int node) {
+		while(parents[node] != node) {
+			parents[node] = parents[parents[node]];
+			node = parents[node];
+		}
+		return node;
+	}
+
+	/*
+	 * Every node on its own step, in random order
+	 */
+	public static int[][] shuffleNodes(CompactGraph graph, Random random) {
+		List<Integer> nodes = IntStream.range(0, graph.getSize()).boxed().collect(Collectors.toList());
+		Collections.shuffle(nodes, random);
+
+		int[][] steps = new int[nodes.size()][];
+		for(int k=0; k<steps.length; k++) {
+			steps[k] = new int[] { nodes.get(k) };
+		}
+		return steps;
+	}
+
+	/*
+	 * Cliques in random order, every step removes the nodes of a clique which are still there.
+	 * Cliques without such nodes are skipped.
+	 */
+	public static int[][] shuffleCliques(CompactGraph graph, List<int[]> cliques, Random random) {
+		List<int[]> shuffled = new ArrayList<>(cliques);
+		Collections.shuffle(shuffled, random);
+
+		boolean[] removed = new boolean[graph.getSize()];
+		List<int[]> steps = new ArrayList<>();
+		for(int[] clique : shuffled) {
+			int[] step = new int[clique.length];
+			int count = 0;
+			for(int node : clique) {
+				if(removed[node]) continue;
+
+				removed[node] = true;
+				step[count++] = node;
+			}
+			if(count > 0) {
+				steps.add(Arrays.copyOf(step, count));
+			}
+		}
+		return steps.toArray(new int[steps.size()][]);
+	}
+
+	/*
+	 * Independent random orders on all processors, run r uses seed + r. Nodes are removed one by one
+	 * when cliques is null.
+	 */
+	public static List<Percolation> run(CompactGraph graph, List<int[]> cliques, int runs, long seed) {
+		return IntStream.range(0, runs).parallel()
+				.mapToObj(run -> {
+					Random random = new Random(seed + run);
+					return new Percolation(graph, cliques == null ? shuffleNodes(graph, random) : shuffleCliques(graph, cliques, random));
+				})
+				.collect(Collectors.toList());
+	}
+
+	public int getNumberOfSteps() {
+		return steps.length;
+	}
+
+	public int getNumberOfComponents(int step) {
+		return numberOfComponents[step];
+	}
+
+	public int getLargestComponentSize(int step) {
+		return largestComponentSizes[step];
+	}
+
+	public int getNumberOfNodes(int step) {
+		return numberOfNodes[step];
+	}
+
+	/*
+	 * First step after which the graph falls into more than one component, -1 if that never happens
+	 */
+	public int getConnectivityLossStep() {
+		for(int k=0; k<=steps.length; k++) {
+			if(numberOfComponents[k] > 1) return k;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,180 @@
+package gory.algorithm;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import gory.domain.CompactGraph;
+
+/*
+ * Triangle counting with the compact forward algorithm (Latapy). Nodes are ranked by degree and every
+ * connection is kept only at its lower ranked end, so each triangle is found exactly once and the work
+ * is O(m^1.5). Long forward rows are intersected by marking them in a bitset, short ones by merging.
+ */
+public class TriangleCounter {
+	// forward rows at least this long are marked in a bitset instead of being merged
+	private static final int DENSE_ROW = 32;
+
+	private CompactGraph graph;
+
+	// number of triangles every node belongs to
+	private long[] triangles;
+
+	private long numberOfTriangles;
+
+	public TriangleCounter(CompactGraph graph) {
+		this.graph = graph;
+
+		int size = graph.getSize();
+
+		// order[r] is the node of rank r, lower degree first
+		int[] order = IntStream.range(0, size).boxed()
+				.sorted((i, j) -> graph.getDegree(i) != graph.getDegree(j) ? Integer.compare(graph.getDegree(i), graph.getDegree(j)) : Integer.compare(i, j))
+				.mapToInt(Integer::intValue).toArray();
+		int[] ranks = new int[size];
+		for(int r=0; r<size; r++) {
+			ranks[order[r]] = r;
+		}
+
+		// neighbours of higher rank, by rank and sorted
+		int[] offsets = new int[size + 1];
+		for(int r=0; r<size; r++) {
+			int node = order[r], count = 0;
+			for(int n=0; n<graph.getDegree(node); n++) {
+				if(ranks[graph.getNeighbor(node, n)] > r) count++;
+			}
+			offsets[r + 1] = offsets[r] + count;
+		}
+		int[] forward = new int[offsets[size]];
+		for(int r=0; r<size; r++) {
+			int node = order[r], k = offsets[r];
+			for(int n=0; n<graph.getDegree(node); n++) {
+				int rank = ranks[graph.getNeighbor(node, n)];
+				if(rank > r) forward[k++] = rank;
+			}
+			Arrays.sort(forward, offsets[r], offsets[r + 1]);
+		}
+
+		Counts counts = IntStream.range(0, size).parallel().collect(
+				() -> new Counts(size),
+				(c, r) -> count(c, r, offsets, forward, order),
+				(c1, c2) -> {
+					for(int i=0; i<size; i++) {
+						c1.triangles[i] += c2.triangles[i];
+					}
+				});
+		triangles = counts.triangles;
+
+		for(long count : triangles) {
+			numberOfTriangles += count;
+		}
+		numberOfTriangles /= 3;
+	}
+
+	/*
+	 * Triangles with rank r as their lowest ranked corner
+	 */
+	private void count(Counts counts, int r, int[] offsets, int[] forward, int[] order) {
+		int from = offsets[r], to = offsets[r + 1];
+		if(to - from < 2) return;
+
+		if(to - from >= DENSE_ROW) {
+			for(int k=from; k<to; k++) {
+				counts.marks[forward[k] >>> 6] |= 1L << forward[k];
+			}
+			for(int k=from; k<to; k++) {
+				int v = forward[k];
+				for(int l=offsets[v]; l<offsets[v + 1]; l++) {
+					int w = forward[l];
+					if((counts.marks[w >>> 6] & (1L << w)) != 0) {
+						counts.add(order[r], order[v], order[w]);
+					}
+				}
+			}
+			for(int k=from; k<to; k++) {
+				counts.marks[forward[k] >>> 6] = 0;
+			}
+		} else {
+			for(int k=from; k<to; k++) {
+				int v = forward[k];
+
+				// rows are sorted, all common ranks are above v
+				int a = k + 1, b = offsets[v];
+				while(a < to && b < offsets[v + 1]) {
+					if(forward[a] < forward[b]) {
+						a++;
+					} else if(forward[a] > forward[b]) {
+						b++;
+					} else {
+						counts.add(order[r], order[v], order[forward[a]]);
+						a++;
+						b++;
+					}
+				}
+			}
+		}
+	}
+
+	public long getNumberOfTriangles() {
+		return numberOfTriangles;
+	}
+
+	public long getTriangles(int node) {
+		return triangles[node];
+	}
+
+	/*
+	 * Ratio of closed to all connected triples
+	 */
+	public double getTransitivity() {
+		long closed = 0, triples = 0;
+		for(int i=0; i<graph.getSize(); i++) {
+			long degree = graph.getDegree(i);
+			closed += triangles[i];
+			triples += degree * (degree - 1) / 2;
+		}
+
+		return triples > 0 ? 1.0 * closed / triples : 0;
+	}
+
+	/*
+	 * 0 for nodes with degree below 2
+	 */
+	public double getLocalClusteringCoefficient(int node) {
+		long degree = graph.getDegree(node);
+		long possible = degree * (degree - 1) / 2;
+		return possible > 0 ? 1.0 * triangles[node] / possible : 0;
+	}
+
+	/*
+	 * Average of local clustering coefficients, NaN for an empty graph
+	 */
+	public double getAverageClusteringCoefficient() {
+		if(graph.getSize() == 0) return Double.NaN;
+
+		double total = 0;
+		for(int i=0; i<graph.getSize(); i++) {
+			total += getLocalClusteringCoefficient(i);
+		}
+
+		return total / graph.getSize();
+	}
+
+	/*
+	 * Triangle counts of one thread and its scratch bitset
+	 */
+	private static class Counts {
+		private long[] triangles;
+		private long[] marks;
+
+		private Counts(int size) {
+			triangles = new long[size];
+			marks = new long[(size + 63) >>> 6];
+		}
+
+		private void add(int u, int v, int w) {
+			triangles[u]++;
+			triangles[v]++;
+			triangles[w]++;
+		}
+	}
+}
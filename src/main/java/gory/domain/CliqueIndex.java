@@ -0,0 +1,168 @@
+package gory.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Cliques every node belongs to, built once from a set of cliques so that membership, overlapping and
+ * the graph of cliques take time proportional to their size instead of comparing every node or clique
+ * with every clique. Nodes are matched by equality, like Graph.distanceTo(Graph) matches them.
+ */
+public class CliqueIndex {
+	private List<Graph> cliques;
+
+	// distinct members of all cliques and their ids
+	private List<INode> nodes = new ArrayList<>();
+	private Map<INode, Integer> ids = new HashMap<>();
+
+	// member ids of every clique
+	private int[][] members;
+
+	// ids of the cliques of node i are cliqueIds[offsets[i]] to cliqueIds[offsets[i+1]-1], in clique order
+	private int[] offsets;
+	private int[] cliqueIds;
+
+	public CliqueIndex(Collection<Graph> cliques) {
+		this.cliques = new ArrayList<>(cliques);
+
+		members = new int[this.cliques.size()][];
+		for(int c=0; c<members.length; c++) {
+			Graph clique = this.cliques.get(c);
+			members[c] = new int[clique.getSize()];
+			int k = 0;
+			for(INode node : clique.getNodes()) {
+				Integer id = ids.get(node);
+				if(id == null) {
+					id = nodes.size();
+					nodes.add(node);
+					ids.put(node, id);
+				}
+				members[c][k++] = id;
+			}
+		}
+
+		offsets = new int[nodes.size() + 1];
+		for(int[] clique : members) {
+			for(int id : clique) {
+				offsets[id + 1]++;
+			}
+		}
+		for(int i=0; i<nodes.size(); i++) {
+			offsets[i + 1] += offsets[i];
+		}
+		cliqueIds = new int[offsets[nodes.size()]];
+		int[] next = Arrays.copyOf(offsets, nodes.size());
+		for(int c=0; c<members.length; c++) {
+			for(int id : members[c]) {
+				cliqueIds[next[id]++] = c;
+			}
+		}
+	}
+
+	public int getNumberOfCliques(INode node) {
+		Integer id = ids.get(node);
+		return id == null ? 0 : offsets[id + 1] - offsets[id];
+	}
+
+	public List<Graph> getCliques(INode node) {
+		Integer id = ids.get(node);
+		if(id == null) return Collections.emptyList();
+
+		List<Graph> cliquesOfNode = new ArrayList<>(offsets[id + 1] - offsets[id]);
+		for(int k=offsets[id]; k<offsets[id + 1]; k++) {
+			cliquesOfNode.add(cliques.get(cliqueIds[k]));
+		}
+		return cliquesOfNode;
+	}
+
+	/*
+	 * Indexes of the cliques every clique shares a node with or has a node connected to or within the
+	 * connection distance of, which is when other.distanceTo(clique) returns 1. Connections may go one way
+	 * only, so this is not always symmetric. Cliques of one graph share their connection distance, nodes
+	 * close to each other are found through a grid index over the members.
+	 */
+	public int[][] getAdjacency() {
+		int[][] closeNodes = getCloseNodes();
+
+		int[][] adjacency = new int[members.length][];
+		int[] marks = new int[members.length];
+		Arrays.fill(marks, -1);
+		int[] row = new int[members.length];
+		for(int c=0; c<members.length; c++) {
+			marks[c] = c;
+			int count = 0;
+			for(int id : members[c]) {
+				count = addCliques(c, id, marks, row, count);
+				for(int closeId : closeNodes[id]) {
+					count = addCliques(c, closeId, marks, row, count);
+				}
+			}
+			adjacency[c] = Arrays.copyOf(row, count);
+			Arrays.sort(adjacency[c]);
+		}
+		return adjacency;
+	}
+
+	private int addCliques(int c, int id, int[] marks, int[] row, int count) {
+		for(int k=offsets[id]; k<offsets[id + 1]; k++) {
+			int other = cliqueIds[k];
+			if(marks[other] != c) {
+				marks[other] = c;
+				row[count++] = other;
+			}
+		}
+		return count;
+	}
+
+	// ids of the other members node i is connected to or within the connection distance of, asked of
+	// node i the way Graph.distanceTo(Graph) asks the nodes of the clique added later
+	private int[][] getCloseNodes() {
+		double connectionDistance = cliques.isEmpty() ? 0 : cliques.get(0).getConnectionDistance();
+
+		GridNeighborIndex neighborIndex = new GridNeighborIndex(connectionDistance);
+		for(INode node : nodes) {
+			neighborIndex.add(node);
+		}
+
+		int[][] closeNodes = new int[nodes.size()][];
+		int[] row = new int[nodes.size()];
+		for(int i=0; i<nodes.size(); i++) {
+			INode node = nodes.get(i);
+			int count = 0;
+			for(INode candidate : neighborIndex.getCandidates(node)) {
+				int j = ids.get(candidate);
+				if(j == i) continue;
+
+				double distance = node.distanceTo(candidate);
+				if(node.isConnectedTo(candidate) || (distance >= 0 && distance <= connectionDistance)) {
+					row[count++] = j;
+				}
+			}
+			closeNodes[i] = Arrays.copyOf(row, count);
+		}
+		return closeNodes;
+	}
+
+	/*
+	 * Same graph as adding every clique with Graph.addNode, in the order the index was built in
+	 */
+	public Graph buildGraphOfCliques(String name, double connectionDistance) {
+		Graph graphOfCliques = new Graph(name, connectionDistance);
+
+		// Graph.distanceTo(Graph) is 1 for adjacent cliques and -1 otherwise
+		int[][] adjacency = connectionDistance >= 1 ? getAdjacency() : new int[members.length][0];
+		for(int c=0; c<members.length; c++) {
+			List<INode> connectedCliques = new ArrayList<>();
+			for(int other : adjacency[c]) {
+				if(other < c) connectedCliques.add(cliques.get(other));
+			}
+			graphOfCliques.addNode(cliques.get(c), connectedCliques);
+		}
+		return graphOfCliques;
+	}
+}
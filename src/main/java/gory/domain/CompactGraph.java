@@ -0,0 +1,159 @@
+package gory.domain;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Immutable snapshot of a graph with dense int ids and adjacency stored in compressed sparse row form:
+ * the neighbours of node i are neighbors[offsets[i]] .. neighbors[offsets[i+1]-1], sorted ascending.
+ * Connections to nodes outside of the graph and to the node itself are not part of the snapshot.
+ */
+public class CompactGraph {
+	private INode[] nodes;
+
+	private Map<INode, Integer> ids;
+
+	private int[] offsets;
+
+	private int[] neighbors;
+
+	public CompactGraph(Graph graph) {
+		int size = graph.getSize();
+
+		nodes = new INode[size];
+		ids = new HashMap<>(2 * size);
+		int id = 0;
+		for(INode node : graph.getNodes()) {
+			nodes[id] = node;
+			ids.put(node, id);
+			id++;
+		}
+
+		offsets = new int[size + 1];
+		int[] row = new int[size];
+		int[] allNeighbors = new int[0];
+		for(int i=0; i<size; i++) {
+			int degree = 0;
+			for(INode connectedNode : nodes[i].getConnectedNodes()) {
+				Integer j = ids.get(connectedNode);
+				if(j == null || j == i) continue;
+
+				row[degree++] = j;
+			}
+			Arrays.sort(row, 0, degree);
+
+			offsets[i + 1] = offsets[i] + degree;
+			if(offsets[i + 1] > allNeighbors.length) {
+				allNeighbors = Arrays.copyOf(allNeighbors, Math.max(offsets[i + 1], 2 * allNeighbors.length));
+			}
+			System.arraycopy(row, 0, allNeighbors, offsets[i], degree);
+		}
+		neighbors = Arrays.copyOf(allNeighbors, offsets[size]);
+	}
+
+	public int getSize() {
+		return nodes.length;
+	}
+
+	public INode getNode(int id) {
+		return nodes[id];
+	}
+
+	// -1 if the node is not in the graph
+	public int getId(INode node) {
+		Integer id = ids.get(node);
+		return id == null ? -1 : id;
+	}
+
+	public int getDegree(int id) {
+		return offsets[id + 1] - offsets[id];
+	}
+
+	public int getNeighbor(int id, int n) {
+		return neighbors[offsets[id] + n];
+	}
+
+	public boolean isConnected(int id1, int id2) {
+		return Arrays.binarySearch(neighbors, offsets[id1], offsets[id1 + 1], id2) >= 0;
+	}
+
+	/*
+	 * Returned arrays are shared with the snapshot and must not be modified
+	 */
+	public int[] getOffsets() {
+		return offsets;
+	}
+
+	public int[] getNeighbors() {
+		return neighbors;
+	}
+
+	public int getSumOfDegrees() {
+		return neighbors.length;
+	}
+
+	public boolean hasIsolatedNodes() {
+		for(int i=0; i<getSize(); i++) {
+			if(getDegree(i) == 0) return true;
+		}
+		return false;
+	}
+
+	public Map<Integer, AtomicInteger> getNodeDegreeCount() {
+		Map<Integer, AtomicInteger> nodeDegreeCount = new TreeMap<>();
+		for(int i=0; i<getSize(); i++) {
+			int degree = getDegree(i);
+
+			AtomicInteger degreeCnt = nodeDegreeCount.get(degree);
+			if(degreeCnt == null) {
+				degreeCnt = new AtomicInteger();
+				nodeDegreeCount.put(degree, degreeCnt);
+			}
+			degreeCnt.incrementAndGet();
+		}
+
+		return nodeDegreeCount;
+	}
+
+	public double getDensity(boolean onlyConnected) {
+		long size = 0;
+		double dam = 0;
+		for(int i=0; i<getSize(); i++) {
+			if(onlyConnected && getDegree(i) == 0) continue;
+
+			size++;
+			dam += getDegree(i);
+		}
+		if(size <= 1) return 0;
+
+		return dam / (size * (size - 1));
+	}
+
+	/*
+	 * Breadth first search from the source, unreachable nodes get distance -1.
+	 * Returns the number of reached nodes including the source.
+	 */
+	public int getShortestDistances(int source, int[] distances, int[] queue) {
+		Arrays.fill(distances, -1);
+		distances[source] = 0;
+		queue[0] = source;
+
+		int head = 0, tail = 1;
+		while(head < tail) {
+			int node = queue[head++];
+			int distance = distances[node] + 1;
+			for(int k=offsets[node]; k<offsets[node + 1]; k++) {
+				int neighbor = neighbors[k];
+				if(distances[neighbor] < 0) {
+					distances[neighbor] = distance;
+					queue[tail++] = neighbor;
+				}
+			}
+		}
+
+		return tail;
+	}
+}
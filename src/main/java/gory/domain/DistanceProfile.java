@@ -0,0 +1,78 @@
+package gory.domain;
+
+import gory.algorithm.MultiSourceBfs;
+import lombok.Getter;
+
+/*
+ * Everything derived from the shortest distances between all pairs of nodes, computed in one pass
+ */
+public class DistanceProfile {
+	private CompactGraph graph;
+
+	private MultiSourceBfs bfs;
+
+	// Integer.MAX_VALUE if the graph is empty, has isolated nodes or is not connected
+	@Getter
+	private int diameter;
+
+	// Integer.MAX_VALUE whenever the diameter is
+	@Getter
+	private int radius;
+
+	// isolated nodes are left out, unreachable pairs count as zero distance
+	@Getter
+	private double characteristicPathLength;
+
+	@Getter
+	private double averageEfficiency;
+
+	public DistanceProfile(CompactGraph graph) {
+		this.graph = graph;
+		this.bfs = new MultiSourceBfs(graph);
+
+		int size = graph.getSize();
+
+		diameter = size == 0 || graph.hasIsolatedNodes() ? Integer.MAX_VALUE : 0;
+		radius = diameter;
+		for(int i=0; i<size && diameter != Integer.MAX_VALUE; i++) {
+			if(bfs.getReachedCount(i) < size - 1) {
+				diameter = Integer.MAX_VALUE;
+				radius = Integer.MAX_VALUE;
+			} else {
+				diameter = Math.max(diameter, bfs.getEccentricity(i));
+				radius = i == 0 ? bfs.getEccentricity(i) : Math.min(radius, bfs.getEccentricity(i));
+			}
+		}
+
+		long[] distanceHistogram = bfs.getDistanceHistogram();
+		long sumOfDistances = 0;
+		double sumOfEfficiencies = 0;
+		for(int distance=1; distance<distanceHistogram.length; distance++) {
+			sumOfDistances += distance * distanceHistogram[distance];
+			sumOfEfficiencies += 1.0 * distanceHistogram[distance] / distance;
+		}
+
+		long connectedSize = 0;
+		for(int i=0; i<size; i++) {
+			if(graph.getDegree(i) > 0) connectedSize++;
+		}
+		characteristicPathLength = connectedSize <= 1 ? 0 : 1.0 * sumOfDistances / (connectedSize * (connectedSize - 1));
+		averageEfficiency = size <= 1 ? 0 : sumOfEfficiencies / ((long) size * (size - 1));
+	}
+
+	/*
+	 * Number of ordered pairs of nodes for every distance, index is the distance.
+	 * The returned array is shared and must not be modified.
+	 */
+	public long[] getDistanceHistogram() {
+		return bfs.getDistanceHistogram();
+	}
+
+	/*
+	 * Largest distance to a node reachable from the given one, -1 for isolated nodes or nodes not in the graph
+	 */
+	public int getEccentricity(INode node) {
+		int id = graph.getId(node);
+		return id < 0 ? -1 : bfs.getEccentricity(id);
+	}
+}
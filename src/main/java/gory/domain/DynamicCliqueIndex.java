@@ -0,0 +1,283 @@
+package gory.domain;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import gory.algorithm.BronKerbosch3;
+
+/*
+ * Cliques of a graph in the form returned by Graph.getCliques, kept up to date while nodes are removed.
+ * Removing a node v only touches the cliques containing it: such a clique C is replaced by C\{v} when
+ * that is still maximal, no other clique can become maximal. "Hanging" cliques are redone for the former
+ * neighbours of v only. The graph of cliques, once asked for, is updated the same way.
+ * Adding nodes or connections is not followed, the index is rebuilt on the next access instead.
+ */
+public class DynamicCliqueIndex {
+	private Graph graph;
+
+	// version of the graph the cliques belong to
+	private long version;
+
+	// members of cliques with at least 3 nodes, in the order they were found
+	private Map<Graph, List<INode>> largeCliques = new LinkedHashMap<>();
+
+	// "hanging" cliques by the node of degree 0 or 1 they were made for, which is their first member
+	private Map<INode, Graph> hangingCliques = new LinkedHashMap<>();
+
+	// members of hanging cliques
+	private Map<Graph, List<INode>> hangingMembers = new HashMap<>();
+
+	// every clique a node belongs to
+	private Map<INode, List<Graph>> cliquesOfNode = new HashMap<>();
+
+	private Graph graphOfCliques;
+
+	public DynamicCliqueIndex(Graph graph) {
+		this.graph = graph;
+		rebuild();
+	}
+
+	public Set<Graph> getCliques() {
+		update();
+
+		Set<Graph> cliques = new LinkedHashSet<>(largeCliques.keySet());
+		cliques.addAll(hangingCliques.values());
+
+		Map<Integer, Integer> countBySize = new HashMap<>();
+		for(Graph clique : cliques) {
+			int size = clique.getSize();
+			Integer count = countBySize.get(size);
+			if(count == null) count = 0;
+			countBySize.put(size, ++count);
+
+			clique.setName("C"+size+"-"+count);
+		}
+
+		return cliques;
+	}
+
+	/*
+	 * Same graph as BaseExperiment.buildGraphOfCliques builds from getCliques
+	 */
+	public Graph getGraphOfCliques() {
+		Set<Graph> cliques = getCliques();
+		if(graphOfCliques == null) {
+			graphOfCliques = new Graph("Graph of cliques", 1);
+			for(Graph clique : cliques) {
+				addToGraphOfCliques(clique);
+			}
+		}
+		return graphOfCliques;
+	}
+
+	/*
+	 * Called by Graph.removeNode once the node is gone, with the nodes which were connected to it
+	 */
+	public void remove(INode node, Collection<INode> formerNeighbors) {
+		// anything else changed in between, leave it to the rebuild
+		if(version != graph.getVersion() - 1) return;
+		version = graph.getVersion();
+
+		List<List<INode>> candidates = new ArrayList<>();
+		List<Graph> cliques = cliquesOfNode.remove(node);
+		if(cliques != null) {
+			for(Graph clique : new ArrayList<>(cliques)) {
+				List<INode> members = largeCliques.containsKey(clique) ? largeCliques.get(clique) : hangingMembers.get(clique);
+				removeClique(clique);
+
+				if(members.size() > 3) {
+					List<INode> rest = new ArrayList<>(members);
+					rest.remove(node);
+					candidates.add(rest);
+				}
+			}
+		}
+
+		List<Graph> newCliques = new ArrayList<>();
+		for(List<INode> members : candidates) {
+			if(isMaximal(members)) {
+				Graph clique = newClique(members);
+				largeCliques.put(clique, members);
+				addMembers(clique, members);
+				newCliques.add(clique);
+			}
+		}
+
+		for(INode neighbor : formerNeighbors) {
+			Graph clique = hangingCliques.get(neighbor);
+			if(clique != null) {
+				removeClique(clique);
+			}
+
+			clique = newHangingClique(neighbor);
+			if(clique != null) {
+				newCliques.add(clique);
+			}
+		}
+
+		if(graphOfCliques != null) {
+			for(Graph clique : newCliques) {
+				addToGraphOfCliques(clique);
+			}
+		}
+	}
+
+	private void update() {
+		if(version != graph.getVersion()) {
+			rebuild();
+		}
+	}
+
+	private void rebuild() {
+		largeCliques.clear();
+		hangingCliques.clear();
+		hangingMembers.clear();
+		cliquesOfNode.clear();
+		graphOfCliques = null;
+
+		CompactGraph compactGraph = graph.getCompactGraph();
+		BronKerbosch3 algorithm = new BronKerbosch3(graph.getSize() >= graph.getParallelCliquesThreshold());
+		algorithm.forEachClique(compactGraph, null, (clique, size) -> {
+			if(size < 3) return;
+
+			List<INode> members = new ArrayList<>(size);
+			for(int i=0; i<size; i++) {
+				members.add(compactGraph.getNode(clique[i]));
+			}
+			Graph g = newClique(members);
+			largeCliques.put(g, members);
+			addMembers(g, members);
+		});
+
+		for(INode node : graph.getNodes()) {
+			newHangingClique(node);
+		}
+
+		version = graph.getVersion();
+	}
+
+	/*
+	 * Clique of the node with its only neighbour or on its own, null if the node has more connections
+	 */
+	private Graph newHangingClique(INode node) {
+		List<INode> members = new ArrayList<>(2);
+		members.add(node);
+		for(INode connectedNode : node.getConnectedNodes()) {
+			if(connectedNode.equals(node) || !graph.getNodes().contains(connectedNode)) continue;
+			if(members.size() == 2) return null;
+
+			members.add(connectedNode);
+		}
+
+		Graph clique = newClique(members);
+		hangingCliques.put(node, clique);
+		hangingMembers.put(clique, members);
+		addMembers(clique, members);
+		return clique;
+	}
+
+	// clones the nodes like BronKerbosch3.findMaxCliques does
+	private Graph newClique(List<INode> members) {
+		Graph clique = new Graph("Clique", graph.getConnectionDistance());
+		for(INode member : members) {
+			clique.addNode(member.cloneIt());
+		}
+		return clique;
+	}
+
+	private void addMembers(Graph clique, List<INode> members) {
+		for(INode member : members) {
+			List<Graph> cliques = cliquesOfNode.get(member);
+			if(cliques == null) {
+				cliques = new ArrayList<>();
+				cliquesOfNode.put(member, cliques);
+			}
+			cliques.add(clique);
+		}
+	}
+
+	private void removeClique(Graph clique) {
+		List<INode> members = largeCliques.remove(clique);
+		if(members == null) {
+			// the node it was made for comes first
+			members = hangingMembers.remove(clique);
+			hangingCliques.remove(members.get(0));
+		}
+
+		for(INode member : members) {
+			List<Graph> cliques = cliquesOfNode.get(member);
+			if(cliques == null) continue;
+
+			cliques.remove(clique);
+			if(cliques.isEmpty()) {
+				cliquesOfNode.remove(member);
+			}
+		}
+
+		if(graphOfCliques != null) {
+			graphOfCliques.removeNode(clique);
+		}
+	}
+
+	/*
+	 * True if no node outside of the clique is connected to all of its members
+	 */
+	private boolean isMaximal(List<INode> members) {
+		INode smallest = members.get(0);
+		for(INode member : members) {
+			if(member.getDegree() < smallest.getDegree()) smallest = member;
+		}
+
+		for(INode node : smallest.getConnectedNodes()) {
+			if(members.contains(node) || !graph.getNodes().contains(node)) continue;
+
+			boolean connectedToAll = true;
+			for(INode member : members) {
+				if(!member.isConnectedTo(node)) {
+					connectedToAll = false;
+					break;
+				}
+			}
+			if(connectedToAll) return false;
+		}
+		return true;
+	}
+
+	/*
+	 * Cliques sharing a node or a connection with the given one are connected to it right away. This is
+	 * what Graph.distanceTo(Graph) finds as long as every connection was made by Graph.addNode, which
+	 * connects all nodes within the connection distance unless their oddness is prohibited.
+	 */
+	private void addToGraphOfCliques(Graph clique) {
+		if(!graph.getProhibitedOddness().isEmpty()) {
+			graphOfCliques.addNode(clique);
+			return;
+		}
+
+		List<INode> members = largeCliques.containsKey(clique) ? largeCliques.get(clique) : hangingMembers.get(clique);
+
+		Set<INode> nodes = new HashSet<>(members);
+		for(INode member : members) {
+			nodes.addAll(member.getConnectedNodes());
+		}
+
+		Set<INode> adjacentCliques = new HashSet<>();
+		for(INode node : nodes) {
+			List<Graph> cliques = cliquesOfNode.get(node);
+			if(cliques != null) {
+				adjacentCliques.addAll(cliques);
+			}
+		}
+		adjacentCliques.remove(clique);
+		adjacentCliques.retainAll(graphOfCliques.getNodes());
+
+		graphOfCliques.addNode(clique, adjacentCliques);
+	}
+}
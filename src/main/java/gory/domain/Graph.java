@@ -4,25 +4,27 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import Jama.Matrix;
-
 import org.graphstream.graph.implementations.SingleGraph;
 
 //import gory.algorithm.BronKerbosch;
-import gory.algorithm.BronKerbosch2;
-import gory.algorithm.Dijkstra;
+import gory.algorithm.BoundingDiameters;
+import gory.algorithm.BronKerbosch3;
+import gory.algorithm.CliqueStatistics;
+import gory.algorithm.EnergyEstimate;
+import gory.algorithm.Lanczos;
+import gory.algorithm.TriangleCounter;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -42,13 +44,35 @@ public class Graph extends Node {
 	@Getter
 	private Set<Integer> prohibitedOddness = new HashSet<>();
 	
+	// null means that every node is checked when a new one is added
+	@Getter
+	private INeighborIndex neighborIndex;
+	
+	// cliques of graphs with at least this many nodes are searched for on all processors
+	@Getter @Setter
+	private int parallelCliquesThreshold = 1000;
+	
+	// bumped by every change of nodes or connections made through the graph
+	@Getter
+	private long version;
+	
+	// results computed for the current version
+	@Getter
+	private MetricsCache metricsCache = new MetricsCache();
+	
+	// null means that cliques are searched for from scratch after every change
+	@Getter @Setter
+	private DynamicCliqueIndex cliqueIndex;
+	
 	public Graph(String name) {
 		this.name = name;
+		this.neighborIndex = new NeighborGenerator(connectionDistance);
 	}
 
 	public Graph(String name, double connectionDistance) {
 		this.name = name;
 		this.connectionDistance = connectionDistance;
+		this.neighborIndex = new NeighborGenerator(connectionDistance);
 	}
 	
 	public Graph(Graph graph) {
@@ -98,10 +122,23 @@ public class Graph extends Node {
 		return null;
 	}
 	
+	/*
+	 * Set to null to fall back to checking every node, e.g. to verify an index
+	 */
+	public void setNeighborIndex(INeighborIndex neighborIndex) {
+		this.neighborIndex = neighborIndex;
+		
+		if(neighborIndex != null) {
+			for(INode node : nodes) {
+				neighborIndex.add(node);
+			}
+		}
+	}
+	
 	public boolean addNode(INode newNode) {
 		if(nodes.contains(newNode)) return false;
 		
-		for(INode node : nodes) {
+		for(INode node : getCandidates(newNode)) {
 			double distance = node.distanceTo(newNode);
 			if(distance >= 0 && distance <= connectionDistance && testOddness(node, newNode)) {
 				node.connect(newNode);
@@ -109,10 +146,114 @@ public class Graph extends Node {
 		}
 		
 		nodes.add(newNode);
+		if(neighborIndex != null) {
+			neighborIndex.add(newNode);
+		}
+		version++;
+		
+		return true;
+	}
+	
+	/*
+	 * Adds a node connected to the given ones only, for callers which already know its connections
+	 */
+	public boolean addNode(INode newNode, Collection<INode> connectedNodes) {
+		if(nodes.contains(newNode)) return false;
+		
+		for(INode node : connectedNodes) {
+			node.connect(newNode);
+		}
+		
+		nodes.add(newNode);
+		if(neighborIndex != null) {
+			neighborIndex.add(newNode);
+		}
+		version++;
+		
+		return true;
+	}
+	
+	/*
+	 * Builds the same graph as calling addNode for every node in iteration order, but connections
+	 * are searched for in parallel and only applied once all of them are known.
+	 */
+	public boolean addAll(Collection<? extends INode> newNodes) {
+		List<INode> addedNodes = new ArrayList<>();
+		Map<INode, Integer> positions = new HashMap<>();
+		for(INode newNode : newNodes) {
+			if(!nodes.add(newNode)) continue;
+			
+			positions.put(newNode, addedNodes.size());
+			addedNodes.add(newNode);
+			if(neighborIndex != null) {
+				neighborIndex.add(newNode);
+			}
+		}
+		
+		List<INode[]> edges = ForkJoinPool.commonPool().invoke(new EdgeSweepTask(addedNodes, positions, 0, addedNodes.size()));
+		for(INode[] edge : edges) {
+			edge[0].connect(edge[1]);
+		}
+		if(addedNodes.isEmpty()) return false;
 		
+		version++;
 		return true;
 	}
 	
+	private class EdgeSweepTask extends RecursiveTask<List<INode[]>> {
+		private static final long serialVersionUID = 1L;
+		
+		private static final int THRESHOLD = 64;
+		
+		private List<INode> addedNodes;
+		private Map<INode, Integer> positions;
+		private int from, to;
+		
+		EdgeSweepTask(List<INode> addedNodes, Map<INode, Integer> positions, int from, int to) {
+			this.addedNodes = addedNodes;
+			this.positions = positions;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected List<INode[]> compute() {
+			if(to - from > THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				EdgeSweepTask left = new EdgeSweepTask(addedNodes, positions, from, middle);
+				EdgeSweepTask right = new EdgeSweepTask(addedNodes, positions, middle, to);
+				left.fork();
+				List<INode[]> edges = right.compute();
+				edges.addAll(0, left.join());
+				return edges;
+			}
+			
+			List<INode[]> edges = new ArrayList<>();
+			for(int i=from; i<to; i++) {
+				INode newNode = addedNodes.get(i);
+				for(INode node : getCandidates(newNode)) {
+					// existing nodes have no position, a pair of new nodes is checked by the later one only 
+					Integer position = positions.get(node);
+					if(position != null && position >= i) continue;
+					
+					double distance = node.distanceTo(newNode);
+					if(distance >= 0 && distance <= connectionDistance && testOddness(node, newNode)) {
+						edges.add(new INode[] {node, newNode});
+					}
+				}
+			}
+			return edges;
+		}
+	}
+	
+	private Collection<INode> getCandidates(INode newNode) {
+		if(neighborIndex == null || !neighborIndex.supports(newNode)) {
+			return nodes;
+		} else {
+			return neighborIndex.getCandidates(newNode);
+		}
+	}
+	
 	protected boolean testOddness(INode node1, INode node2) {
 		if(prohibitedOddness.isEmpty()) return true;
 		if(!(node1 instanceof PartitionNode)) return true;
@@ -138,13 +279,34 @@ public class Graph extends Node {
 	}
 	
 	public void removeNode(INode nodeToRemove) {
-		nodes.remove(nodeToRemove);
+		boolean removed = nodes.remove(nodeToRemove);
+		if(neighborIndex != null) {
+			neighborIndex.remove(nodeToRemove);
+		}
+		if(removed) {
+			version++;
+		}
 		
+		List<INode> formerNeighbors = new ArrayList<>();
 		for(INode node : nodes) {
-			node.getConnectedNodes().remove(nodeToRemove);
+			if(node.getConnectedNodes().remove(nodeToRemove)) {
+				formerNeighbors.add(node);
+			}
+		}
+		
+		if(removed && cliqueIndex != null) {
+			cliqueIndex.remove(nodeToRemove, formerNeighbors);
 		}
 	}
 	
+	/*
+	 * Connects two nodes of the graph regardless of their distance
+	 */
+	public void connect(INode node1, INode node2) {
+		node1.connect(node2);
+		version++;
+	}
+	
 	public void replaceNode(INode oldNode, INode newNode) {
 		removeNode(oldNode);
 		addNode(newNode);
@@ -188,7 +350,18 @@ public class Graph extends Node {
 	}
 
 	public Set<Graph> getCliques(Integer maxAllowedDegree) {
-		BronKerbosch2 algorithm = new BronKerbosch2();
+		// thinned connections are random, so only the full result can be kept
+		if(maxAllowedDegree == null) {
+			if(cliqueIndex != null) {
+				return Collections.unmodifiableSet(cliqueIndex.getCliques());
+			}
+			return metricsCache.get("cliques", version, () -> Collections.unmodifiableSet(findCliques(null)));
+		}
+		return findCliques(maxAllowedDegree);
+	}
+	
+	private Set<Graph> findCliques(Integer maxAllowedDegree) {
+		BronKerbosch3 algorithm = new BronKerbosch3(getSize() >= parallelCliquesThreshold);
 		
 		Set<Graph> cliques = algorithm.findMaxCliques(this, maxAllowedDegree);
 	
@@ -205,64 +378,60 @@ public class Graph extends Node {
 		return cliques;
 	}
 
-	public int getDiameter() {
-		Dijkstra algorithm = new Dijkstra();
-		return algorithm.getDiameter(this);
+	/*
+	 * Counts and largest size of the cliques returned by getCliques, without building them
+	 */
+	public CliqueStatistics getCliqueStatistics() {
+		return metricsCache.get("clique statistics", version, () -> new CliqueStatistics(getCompactGraph()));
 	}
 
-	public double getCharacteristicPathLength() {
-		Dijkstra algorithm = new Dijkstra();
-		
-		int size = 0;
-		int sumOfDistances = 0;
-		for(INode nodeStart : getNodes()) {
-			if(nodeStart.getConnectedNodes().isEmpty()) continue;
-			
-			size ++;
-			
-			Map<INode, Integer> shortestDistances = algorithm.getShortestDistances(this, nodeStart);
-			
-			for(INode nodeEnd : shortestDistances.keySet()) {
-				if(nodeEnd.equals(nodeStart)) continue;
-			
-				int shortestDistance = shortestDistances.get(nodeEnd);
-				if(shortestDistance == Integer.MAX_VALUE) {
-					shortestDistance = 0;
-				}
+	public Map<Integer, AtomicInteger> getCliquesCountBySize() {
+		int[] counts = getCliqueStatistics().getCountBySize();
 
-				sumOfDistances += shortestDistance;
+		Map<Integer, AtomicInteger> cliquesCountBySize = new TreeMap<>();
+		for(int size=1; size<counts.length; size++) {
+			if(counts[size] > 0) {
+				cliquesCountBySize.put(size, new AtomicInteger(counts[size]));
 			}
 		}
-		if(size <= 1) return 0;
+		return cliquesCountBySize;
+	}
 
-		return 1.0 * sumOfDistances/(size * (size - 1));
+	/*
+	 * Snapshot of the current nodes and connections, it does not follow later changes
+	 */
+	public CompactGraph getCompactGraph() {
+		return metricsCache.get("compact graph", version, () -> new CompactGraph(this));
 	}
 
-	public double getAverageEfficiency() {
-		int size = getSize();
-		if(size <= 1) return 0;
-		
-		Dijkstra algorithm = new Dijkstra();
-		
-		double sumOfDistances = 0;
-		for(INode nodeStart : getNodes()) {
-			if(nodeStart.getConnectedNodes().isEmpty()) continue;
-			
-			Map<INode, Integer> shortestDistances = algorithm.getShortestDistances(this, nodeStart);
-			
-			for(INode nodeEnd : shortestDistances.keySet()) {
-				if(nodeEnd.equals(nodeStart)) continue;
-			
-				int shortestDistance = shortestDistances.get(nodeEnd);
-				if(shortestDistance == Integer.MAX_VALUE) {
-					continue;
-				}
+	public DistanceProfile getDistanceProfile() {
+		return metricsCache.get("distance profile", version, () -> new DistanceProfile(getCompactGraph()));
+	}
 
-				sumOfDistances += 1.0/shortestDistance;
-			}
+	public int getDiameter() {
+		DistanceProfile distanceProfile = metricsCache.peek("distance profile", version);
+		if(distanceProfile != null) {
+			return distanceProfile.getDiameter();
 		}
+		return metricsCache.get("diameter", version, () -> new BoundingDiameters(getCompactGraph()).getDiameter());
+	}
 
-		return 1.0 * sumOfDistances/(size * (size - 1));
+	/*
+	 * Exact diameter when it is below the threshold, otherwise some lower bound of it reaching the threshold
+	 */
+	public int getDiameterAtLeast(int threshold) {
+		if(metricsCache.peek("distance profile", version) != null || metricsCache.peek("diameter", version) != null) {
+			return getDiameter();
+		}
+		return new BoundingDiameters(getCompactGraph()).getDiameterAtLeast(threshold);
+	}
+
+	public double getCharacteristicPathLength() {
+		return getDistanceProfile().getCharacteristicPathLength();
+	}
+
+	public double getAverageEfficiency() {
+		return getDistanceProfile().getAverageEfficiency();
 	}
 
 	public double getDensityAdjacentMatrix() {
@@ -270,74 +439,38 @@ public class Graph extends Node {
 	}
 
 	public double getDensityAdjacentMatrix(boolean onlyConnected) {
-		int size = 0;
-		double dam = 0;
-		for(INode node : nodes) {
-			if(onlyConnected && node.getConnectedNodes().isEmpty()) continue;
-			
-			size++;
-			dam += node.getConnectedNodes().size();
-		}
-		if(size <= 1) return 0;
-		
-		dam /= (size * (size - 1));
-		
-		return dam;
+		return getCompactGraph().getDensity(onlyConnected);
 	}
 	
 	public double getClusteringCoefficientUsingTriangles() {
-		double total = 0.0;
-        for (INode node : getNodes()) {
-        	total += node.getClusteringCoefficientUsingTriangles();
-
-        }
-
-        return total / getSize();
+		return getTriangleCounter().getAverageClusteringCoefficient();
 	}
 	
+	/*
+	 * Second smallest eigenvalue of the Laplacian
+	 */
 	public double getCheegerConstant() {
- 		double[][] a = getAdjacencyMatrix();
-		Matrix am = new Matrix(a);
-
- 		double[][] d = getDegreeMatrix();
-		Matrix dm = new Matrix(d);
-
-		Matrix lm = dm.minus(am);
-		
-		double[] eigs = lm.eig().getRealEigenvalues();
-		
-		if(eigs.length<2) {
-			return 0;
-		} else {
-			Arrays.sort(eigs);
-			return eigs[1];
-		}
+		return metricsCache.get("cheeger constant", version, () -> Lanczos.getAlgebraicConnectivity(getCompactGraph()));
 	}
 	
 	public double getEnergy() {
- 		double[][] matrix = getAdjacencyMatrix();
-		
- 		if(matrix.length == 0) return 0;
- 				
-		Matrix m = new Matrix(matrix);
-		
-		double[] eigs = m.eig().getRealEigenvalues();
-		
-		double energy = 0;
-		for(double eig : eigs) {
-			energy += Math.abs(eig);
-		}
-		
-		return energy;
+		return metricsCache.get("energy", version, () -> Lanczos.getEnergy(getCompactGraph()));
+	}
+	
+	/*
+	 * Estimated energy for graphs too large for the full spectrum
+	 */
+	public EnergyEstimate getEnergyEstimate(int probes, int steps) {
+		return new EnergyEstimate(getCompactGraph(), probes, steps);
 	}
 	
 	public double[][] getAdjacencyMatrix() {
-		List<INode> nodes = new ArrayList<>(getNodes());
- 		double[][] matrix = new double[nodes.size()][nodes.size()];
+		CompactGraph compactGraph = getCompactGraph();
+ 		double[][] matrix = new double[compactGraph.getSize()][compactGraph.getSize()];
 
-		for(int i=0; i<getSize(); i++) {
-			for(int j=0; j<getSize(); j++) {
-				matrix[i][j] = nodes.get(i).isConnectedTo(nodes.get(j)) ? 1 : 0;
+		for(int i=0; i<compactGraph.getSize(); i++) {
+			for(int n=0; n<compactGraph.getDegree(i); n++) {
+				matrix[i][compactGraph.getNeighbor(i, n)] = 1;
 			}
 		}
 		
@@ -345,112 +478,29 @@ public class Graph extends Node {
 	}
 
 	public double[][] getDegreeMatrix() {
-		List<INode> nodes = new ArrayList<>(getNodes());
- 		double[][] matrix = new double[nodes.size()][nodes.size()];
-
-		for(int i=0; i<getSize(); i++) {
-			for(int j=0; j<getSize(); j++) {
-				if(i == j) {
-					matrix[i][j] = nodes.get(i).getDegree();
-				} else {
-					matrix[i][j] = 0;
-				}
-			}
+		CompactGraph compactGraph = getCompactGraph();
+ 		double[][] matrix = new double[compactGraph.getSize()][compactGraph.getSize()];
+
+		for(int i=0; i<compactGraph.getSize(); i++) {
+			matrix[i][i] = compactGraph.getDegree(i);
 		}
 		
 		return matrix;
 	}
 
  	public double getClusteringCoefficientUsingMatrix() {
-		List<INode> nodes = new ArrayList<>(getNodes());
- 		boolean[][] matrix = new boolean[nodes.size()][nodes.size()];
-
-		for(int i=0; i<getSize(); i++) {
-			for(int j=0; j<getSize(); j++) {
-				matrix[i][j] = nodes.get(i).isConnectedTo(nodes.get(j));
-			}
-		}
- 		
-		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-
-		AtomicInteger Ntr = new AtomicInteger();
-		int[] ntrs = new int[nodes.size()];
-		for(int i=0; i<nodes.size(); i++) {
-			final int iFinal = i;
-			executor.submit(new Callable<Void>() {
-				public Void call() {
-					for(int j=iFinal+1; j<nodes.size(); j++) {
-						int jFinal = j;
-						for(int k=j+1; k<nodes.size(); k++) {
-							int kFinal = k;
-							ntrs[iFinal] += (matrix[iFinal][jFinal] ? 
-											matrix[iFinal][kFinal] ? 
-												matrix[jFinal][kFinal] ? 1 : 0
-											: 0
-									: 0);
-				        }
-			        }
-					Ntr.updateAndGet(x -> x +ntrs[iFinal]);
-					
-					return null;
-				}
-			});
-        }
-
-		executor.shutdown();
-		try {
-			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
-		} catch (InterruptedException e) {
-			throw new RuntimeException(e);
-		}
-
-		executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-		AtomicInteger N3 = new AtomicInteger();
-		int[] n3s = new int[nodes.size()];
-		for(int i=0; i<nodes.size(); i++) {
-			final int iFinal = i;
-			executor.submit(new Callable<Void>() {
-				public Void call() {
-					for(int j=iFinal+1; j<nodes.size(); j++) {
-						int jFinal = j;
-						for(int k=j+1; k<nodes.size(); k++) {
-							int kFinal = k;
-							n3s[iFinal] += ((matrix[iFinal][jFinal] ? 1 : 0)*(matrix[iFinal][kFinal] ? 1 : 0) +
-									(matrix[jFinal][iFinal] ? 1 : 0)*(matrix[jFinal][kFinal] ? 1 : 0) +
-									(matrix[kFinal][iFinal] ? 1 : 0)*(matrix[kFinal][jFinal] ? 1 : 0));
-						}
-			        }
-					N3.updateAndGet(x -> x + n3s[iFinal]);
-					
-					return null;
-				}
-			});
-        }
-
-		executor.shutdown();
-		try {
-			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
-		} catch (InterruptedException e) {
-			throw new RuntimeException(e);
-		}
-
-		return N3.get() > 0 ? 3.0 * Ntr.get() / N3.get() : 0;
+ 		return getTriangleCounter().getTransitivity();
  	} 
 
+	public TriangleCounter getTriangleCounter() {
+		return metricsCache.get("triangles", version, () -> new TriangleCounter(getCompactGraph()));
+	}
+
+	/*
+	 * The returned map is cached, so it is read-only
+	 */
 	public Map<Integer, AtomicInteger> getNodeDegreeCount() {
-		Map<Integer, AtomicInteger> nodeDegreeCount = new TreeMap<>();
-		for(INode node : nodes) {
-			int degree = node.getDegree();
-			
-			AtomicInteger degreeCnt = nodeDegreeCount.get(degree);
-			if(degreeCnt == null) {
-				degreeCnt = new AtomicInteger();
-				nodeDegreeCount.put(degree, degreeCnt);
-			}
-			degreeCnt.incrementAndGet();
-		}
-		
-		return nodeDegreeCount;
+		return metricsCache.get("degree count", version, () -> Collections.unmodifiableMap(getCompactGraph().getNodeDegreeCount()));
 	}
 
 	public Map<Integer, Double> getNodeDegreeDistribution() {
@@ -484,12 +534,7 @@ public class Graph extends Node {
 	}
 	
 	public int getSumOfDegrees() {
-		int sumOfDegrees = 0;
-		for(INode node : nodes) {
-			int degree = node.getDegree();
-			sumOfDegrees += degree;
-		}
-		return sumOfDegrees;
+		return getCompactGraph().getSumOfDegrees();
 	}
 
 	public void deleteAllCliquesOfSize(int size) {	    		
@@ -567,15 +612,12 @@ public class Graph extends Node {
 	}
 	
 	public double getGlobalOverlapping(Set<Graph> cliques) {
+		CliqueIndex cliqueIndex = new CliqueIndex(cliques);
+		
 		int globalOverlapping = 0;
 		int nodesInCliques = 0;
 		for(INode node : nodes) {
-			int localOverlapping = 0;
-			for(Graph clique : cliques) {
-				if(clique.nodes.contains(node)) {
-					localOverlapping ++;
-				}
-			}
+			int localOverlapping = cliqueIndex.getNumberOfCliques(node);
 			if(localOverlapping>0) {
 				nodesInCliques++;
 			}
@@ -0,0 +1,125 @@
+package gory.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Buckets partition nodes into a grid over their leading summands with cell width equal to
+ * the connection distance. Partition distance is Chebyshev, so two nodes within the connection
+ * distance differ by at most one cell in every dimension and only neighbouring cells are probed.
+ * Nodes which are not partitions are always returned as candidates.
+ */
+public class GridNeighborIndex implements INeighborIndex {
+	// number of leading summands used for bucketing
+	private static final int PROBE_DIMENSIONS = 3;
+	
+	private static final int COORDINATE_BITS = 16;
+	private static final long COORDINATE_MASK = (1L << COORDINATE_BITS) - 1;
+	
+	private double cellWidth;
+	
+	private Map<Long, List<INode>> cells = new HashMap<>();
+	
+	private Set<INode> otherNodes = new HashSet<>();
+	
+	public GridNeighborIndex(double connectionDistance) {
+		// a bit wider than the connection distance so rounding never pushes neighbours two cells apart
+		this.cellWidth = connectionDistance > 0 ? connectionDistance * (1 + 1e-9) : 1;
+	}
+	
+	@Override
+	public boolean supports(INode node) {
+		return node instanceof PartitionNode;
+	}
+
+	@Override
+	public void add(INode node) {
+		if(supports(node)) {
+			long key = getCellKey(getCoordinates((PartitionNode) node), null);
+			List<INode> cell = cells.get(key);
+			if(cell == null) {
+				cell = new ArrayList<>();
+				cells.put(key, cell);
+			}
+			cell.add(node);
+		} else {
+			otherNodes.add(node);
+		}
+	}
+
+	@Override
+	public void remove(INode node) {
+		if(supports(node)) {
+			long key = getCellKey(getCoordinates((PartitionNode) node), null);
+			List<INode> cell = cells.get(key);
+			if(cell == null) return;
+			
+			cell.remove(node);
+			if(cell.isEmpty()) {
+				cells.remove(key);
+			}
+		} else {
+			otherNodes.remove(node);
+		}
+	}
+
+	@Override
+	public Collection<INode> getCandidates(INode node) {
+		List<INode> candidates = new ArrayList<>(otherNodes);
+		if(!supports(node)) return candidates;
+		
+		long[] coordinates = getCoordinates((PartitionNode) node);
+		int[] offsets = new int[coordinates.length];
+		Arrays.fill(offsets, 1, offsets.length, -1);
+
+		Set<Long> probedKeys = new HashSet<>();
+		while(true) {
+			long key = getCellKey(coordinates, offsets);
+			if(probedKeys.add(key)) {
+				List<INode> cell = cells.get(key);
+				if(cell != null) {
+					candidates.addAll(cell);
+				}
+			}
+			
+			// next combination of offsets from {-1, 0, 1}
+			int i = 1;
+			while(i < offsets.length && offsets[i] == 1) {
+				offsets[i++] = -1;
+			}
+			if(i == offsets.length) break;
+			offsets[i]++;
+		}
+		
+		return candidates;
+	}
+	
+	private long[] getCoordinates(PartitionNode node) {
+		Partition partition = node.getPartition();
+		int length = (int) partition.getNumberOfDigits();
+		
+		long[] coordinates = new long[Math.min(PROBE_DIMENSIONS, length) + 1];
+		coordinates[0] = length;
+		for(int i=1; i<coordinates.length; i++) {
+			coordinates[i] = (long) Math.floor(partition.getAt(i) / cellWidth);
+		}
+		
+		return coordinates;
+	}
+	
+	// first coordinate is the number of summands and is never shifted
+	private long getCellKey(long[] coordinates, int[] offsets) {
+		long key = coordinates[0];
+		for(int i=1; i<coordinates.length; i++) {
+			long coordinate = coordinates[i] + (offsets == null ? 0 : offsets[i]);
+			key = (key << COORDINATE_BITS) | (coordinate & COORDINATE_MASK);
+		}
+		return key;
+	}
+}
@@ -0,0 +1,14 @@
+package gory.domain;
+
+import java.util.Collection;
+
+/*
+ * Narrows down the nodes Graph.addNode has to check for a connection.
+ * Candidates may contain nodes that end up not being connected, but must never miss one.
+ */
+public interface INeighborIndex {
+	public boolean supports(INode node);
+	public void add(INode node);
+	public void remove(INode node);
+	public Collection<INode> getCandidates(INode node);
+}
@@ -0,0 +1,158 @@
+package gory.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Immutable partition with whole summands, kept in descending order in the narrowest of byte[], short[]
+ * or int[] that holds them. Hash, evenness, oddness and rank are computed once, nothing is allocated
+ * by the accessors. Noisy summands (see Partition.applyNormalDistribution) stay with Partition.
+ */
+public final class IntPartition {
+	// exactly one of them is set
+	private byte[] bytes;
+	private short[] shorts;
+	private int[] ints;
+
+	private int length;
+	private int sumOfDigits;
+	private int evenness;
+	private int oddness;
+	private int rank;
+	private int hash;
+
+	public IntPartition(int... summands) {
+		int[] sorted = summands.clone();
+		Arrays.sort(sorted);
+
+		length = sorted.length;
+		int max = 0;
+		for(int i=0; i<length; i++) {
+			max = Math.max(max, Math.abs(sorted[i]));
+		}
+
+		// descending, like Partition
+		if(max <= Byte.MAX_VALUE) {
+			bytes = new byte[length];
+			for(int i=0; i<length; i++) {
+				bytes[i] = (byte) sorted[length - 1 - i];
+			}
+		} else if(max <= Short.MAX_VALUE) {
+			shorts = new short[length];
+			for(int i=0; i<length; i++) {
+				shorts[i] = (short) sorted[length - 1 - i];
+			}
+		} else {
+			ints = new int[length];
+			for(int i=0; i<length; i++) {
+				ints[i] = sorted[length - 1 - i];
+			}
+		}
+
+		hash = 1;
+		rank = length;
+		for(int i=0; i<length; i++) {
+			int summand = get(i);
+			sumOfDigits += summand;
+			if(summand%2 == 0) evenness++;
+			if(summand%2 == 1) oddness++;
+
+			// same rule as Partition.getRank
+			if(rank == length && i > summand) rank = i;
+
+			hash = 31 * hash + summand;
+		}
+	}
+
+	/*
+	 * Null if some summand is not a whole number or the summands are not in descending order
+	 */
+	public static IntPartition valueOf(Partition partition) {
+		int[] summands = new int[(int) partition.getNumberOfDigits()];
+		for(int i=0; i<summands.length; i++) {
+			double summand = partition.getAt(i + 1);
+			if(summand != Math.rint(summand) || Math.abs(summand) > Integer.MAX_VALUE) return null;
+			if(i > 0 && summand > summands[i - 1]) return null;
+
+			summands[i] = (int) summand;
+		}
+		return new IntPartition(summands);
+	}
+
+	private int get(int index) {
+		if(bytes != null) return bytes[index];
+		if(shorts != null) return shorts[index];
+		return ints[index];
+	}
+
+	public int getNumberOfDigits() {
+		return length;
+	}
+
+	// position is 1-based
+	public int getAt(int position) {
+		return get(position - 1);
+	}
+
+	public int getSumOfDigits() {
+		return sumOfDigits;
+	}
+
+	public int getEvenness() {
+		return evenness;
+	}
+
+	public int getOddness() {
+		return oddness;
+	}
+
+	public int getRank() {
+		return rank;
+	}
+
+	/*
+	 * Largest difference of summands at the same position, -1 for partitions of different lengths
+	 */
+	public int distanceTo(IntPartition partition) {
+		if(length != partition.length) return -1;
+
+		int distance = 0;
+		for(int i=0; i<length; i++) {
+			int d = Math.abs(get(i) - partition.get(i));
+			if(d > distance) distance = d;
+		}
+		return distance;
+	}
+
+	public Partition toPartition() {
+		List<Double> summands = new ArrayList<>(length);
+		for(int i=0; i<length; i++) {
+			summands.add((double) get(i));
+		}
+		return new Partition(summands);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(o == this) return true;
+		if(!(o instanceof IntPartition)) return false;
+
+		IntPartition partition = (IntPartition) o;
+		if(hash != partition.hash || length != partition.length) return false;
+		for(int i=0; i<length; i++) {
+			if(get(i) != partition.get(i)) return false;
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return toPartition().toString();
+	}
+}
@@ -0,0 +1,64 @@
+package gory.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Growing list of partitions packed by PackedPartition, 8 bytes per partition. Meant for keeping whole
+ * families in memory; the experiments make only the family of a head, with PartitionBuilder.ball.
+ */
+public class LongPartitionList {
+	private long[] codes;
+	private int size;
+
+	public LongPartitionList() {
+		this(16);
+	}
+
+	public LongPartitionList(int capacity) {
+		codes = new long[Math.max(capacity, 1)];
+	}
+
+	public void add(long code) {
+		if(size == codes.length) {
+			codes = Arrays.copyOf(codes, 2 * size);
+		}
+		codes[size++] = code;
+	}
+
+	public long get(int index) {
+		if(index >= size) throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+
+		return codes[index];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public Partition getPartition(int index) {
+		return PackedPartition.decode(get(index));
+	}
+
+	/*
+	 * Partitions with the same length as the given one and no summand further from it than the distance
+	 */
+	public LongPartitionList getWithin(long code, int distance) {
+		LongPartitionList within = new LongPartitionList();
+		for(int i=0; i<size; i++) {
+			if(PackedPartition.isWithin(code, codes[i], distance)) {
+				within.add(codes[i]);
+			}
+		}
+		return within;
+	}
+
+	public List<Partition> toPartitions() {
+		List<Partition> partitions = new ArrayList<>(size);
+		for(int i=0; i<size; i++) {
+			partitions.add(PackedPartition.decode(codes[i]));
+		}
+		return partitions;
+	}
+}
@@ -0,0 +1,70 @@
+package gory.domain;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*
+ * Results computed from a graph, every one is kept together with the version of the graph it was
+ * computed for and is recomputed once the version changes. Hits and misses are counted per metric.
+ */
+public class MetricsCache {
+	private Map<String, Object> values = new HashMap<>();
+	private Map<String, Long> versions = new HashMap<>();
+
+	private Map<String, AtomicInteger> hits = new TreeMap<>();
+	private Map<String, AtomicInteger> misses = new TreeMap<>();
+
+	@SuppressWarnings("unchecked")
+	public <T> T get(String metric, long version, Supplier<T> supplier) {
+		Long cachedVersion = versions.get(metric);
+		if(cachedVersion != null && cachedVersion == version) {
+			count(hits, metric);
+			return (T) values.get(metric);
+		}
+
+		count(misses, metric);
+		T value = supplier.get();
+		values.put(metric, value);
+		versions.put(metric, version);
+		return value;
+	}
+
+	/*
+	 * Cached value for this version or null, neither a hit nor a miss
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T peek(String metric, long version) {
+		Long cachedVersion = versions.get(metric);
+		return cachedVersion != null && cachedVersion == version ? (T) values.get(metric) : null;
+	}
+
+	public Set<String> getMetrics() {
+		Set<String> metrics = new TreeSet<>(hits.keySet());
+		metrics.addAll(misses.keySet());
+		return metrics;
+	}
+
+	public int getHits(String metric) {
+		AtomicInteger count = hits.get(metric);
+		return count == null ? 0 : count.get();
+	}
+
+	public int getMisses(String metric) {
+		AtomicInteger count = misses.get(metric);
+		return count == null ? 0 : count.get();
+	}
+
+	private static void count(Map<String, AtomicInteger> counts, String metric) {
+		AtomicInteger count = counts.get(metric);
+		if(count == null) {
+			count = new AtomicInteger();
+			counts.put(metric, count);
+		}
+		count.incrementAndGet();
+	}
+}
@@ -0,0 +1,197 @@
+package gory.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Finds the neighbours of a partition node by making every partition within the connection distance
+ * and looking it up among the nodes present, instead of going through the nodes. Only partitions with
+ * whole, non-negative summands in descending order are made; the others are found by grids. When making
+ * the partitions would take more steps than there are nodes, the grid over all nodes is used instead,
+ * so a node never costs more than a scan.
+ */
+public class NeighborGenerator implements INeighborIndex {
+	private int distance;
+
+	private Map<Key, INode> generated = new HashMap<>();
+
+	// number of generated nodes by number of summands and sum
+	private Map<Long, Integer> sums = new HashMap<>();
+
+	private GridNeighborIndex all;
+	private GridNeighborIndex others;
+
+	public NeighborGenerator(double connectionDistance) {
+		this.distance = (int) Math.floor(connectionDistance);
+		this.all = new GridNeighborIndex(connectionDistance);
+		this.others = new GridNeighborIndex(connectionDistance);
+	}
+
+	@Override
+	public boolean supports(INode node) {
+		return all.supports(node);
+	}
+
+	@Override
+	public void add(INode node) {
+		all.add(node);
+
+		int[] summands = getSummands(node);
+		if(summands == null) {
+			others.add(node);
+		} else {
+			generated.put(new Key(summands), node);
+			sums.merge(getSumKey(summands), 1, Integer::sum);
+		}
+	}
+
+	@Override
+	public void remove(INode node) {
+		all.remove(node);
+
+		int[] summands = getSummands(node);
+		if(summands == null) {
+			others.remove(node);
+		} else if(generated.remove(new Key(summands), node)) {
+			sums.computeIfPresent(getSumKey(summands), (key, count) -> count == 1 ? null : count - 1);
+		}
+	}
+
+	@Override
+	public Collection<INode> getCandidates(INode node) {
+		int[] summands = getSummands(node);
+		if(summands == null || distance < 0) return all.getCandidates(node);
+
+		Generation generation = new Generation(summands, Math.max(generated.size(), 64));
+		int sum = 0;
+		for(int summand : summands) {
+			sum += summand;
+		}
+		for(int other=sum-distance*summands.length; other<=sum+distance*summands.length; other++) {
+			if(other < 0 || !sums.containsKey(getSumKey(summands.length, other))) continue;
+
+			if(!generation.run(other)) return all.getCandidates(node);
+		}
+
+		List<INode> candidates = generation.found;
+		candidates.addAll(others.getCandidates(node));
+		return candidates;
+	}
+
+	/*
+	 * Summands in descending order, null if they are not all whole and non-negative
+	 */
+	private static int[] getSummands(INode node) {
+		if(!(node instanceof PartitionNode)) return null;
+
+		IntPartition partition = ((PartitionNode) node).getPartition().getIntPartition();
+		if(partition == null) return null;
+
+		int[] summands = new int[partition.getNumberOfDigits()];
+		for(int i=0; i<summands.length; i++) {
+			summands[i] = partition.getAt(i + 1);
+		}
+		if(summands.length > 0 && summands[summands.length - 1] < 0) return null;
+
+		return summands;
+	}
+
+	private static long getSumKey(int[] summands) {
+		int sum = 0;
+		for(int summand : summands) {
+			sum += summand;
+		}
+		return getSumKey(summands.length, sum);
+	}
+
+	private static long getSumKey(int length, int sum) {
+		return ((long) length << 32) | (sum & 0xFFFFFFFFL);
+	}
+
+	// partitions around one node, stops once it took more steps than allowed
+	private class Generation {
+		private int[] center;
+		private int[] lower;
+		private int[] upper;
+		private int[] lowerRest;
+		private int[] upperRest;
+
+		private Key probe;
+		private List<INode> found = new ArrayList<>();
+		private int steps;
+
+		Generation(int[] center, int steps) {
+			int m = center.length;
+			this.center = center;
+			this.steps = steps;
+
+			lower = new int[m];
+			upper = new int[m];
+			for(int i=0; i<m; i++) {
+				lower[i] = Math.max(0, center[i] - distance);
+				upper[i] = center[i] + distance;
+			}
+
+			// smallest and largest sums of the summands from position i on
+			lowerRest = new int[m + 1];
+			upperRest = new int[m + 1];
+			for(int i=m-1; i>=0; i--) {
+				lowerRest[i] = lowerRest[i + 1] + lower[i];
+				upperRest[i] = upperRest[i + 1] + upper[i];
+			}
+
+			probe = new Key(new int[m]);
+		}
+
+		boolean run(int sum) {
+			return addNext(0, sum, Integer.MAX_VALUE);
+		}
+
+		private boolean addNext(int position, int remaining, int max) {
+			if(--steps < 0) return false;
+
+			int[] summands = probe.summands;
+			if(position == summands.length) {
+				if(remaining == 0 && !Arrays.equals(summands, center)) {
+					probe.hash = Arrays.hashCode(summands);
+					INode node = generated.get(probe);
+					if(node != null) found.add(node);
+				}
+				return true;
+			}
+
+			long upperRestBelowMax = Math.min(upperRest[position + 1], (long) (summands.length - position - 1) * max);
+			int from = (int) Math.max(lower[position], remaining - upperRestBelowMax);
+			int to = Math.min(Math.min(upper[position], max), remaining - lowerRest[position + 1]);
+			for(int summand=from; summand<=to; summand++) {
+				summands[position] = summand;
+				if(!addNext(position + 1, remaining - summand, summand)) return false;
+			}
+			return true;
+		}
+	}
+
+	private static class Key {
+		private int[] summands;
+		private int hash;
+
+		Key(int[] summands) {
+			this.summands = summands;
+			this.hash = Arrays.hashCode(summands);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key && Arrays.equals(summands, ((Key) o).summands);
+		}
+	}
+}
@@ -29,21 +29,25 @@ public abstract class Node implements INode {
 	
 	@Override
 	public double getClusteringCoefficientUsingTriangles() {
-        int possible = 0;
-        int actual = 0;
-        Set<INode> seen = new HashSet<>();
-        for (INode u : getConnectedNodes()) {
-            seen.add(u);
-        	for (INode w : getConnectedNodes()) {
-            	if(seen.contains(w)) continue;
-            	
-            	possible++;
-                if(u.isConnectedTo(w)) {
-                    actual++;
-                }
-            }
-        }
-        return possible > 0 ? 1.0 * actual / possible : 0;
+		long degree = connectedNodes.size();
+		long possible = degree * (degree - 1) / 2;
+		if(possible == 0) return 0;
+		
+		// every connected pair of neighbours is seen from both ends, walking the smaller set each time
+		long actual = 0;
+		for(INode u : connectedNodes) {
+			Set<INode> uConnectedNodes = u.getConnectedNodes();
+			if(uConnectedNodes.size() < connectedNodes.size()) {
+				for(INode w : uConnectedNodes) {
+					if(!w.equals(u) && connectedNodes.contains(w)) actual++;
+				}
+			} else {
+				for(INode w : connectedNodes) {
+					if(!w.equals(u) && uConnectedNodes.contains(w)) actual++;
+				}
+			}
+		}
+		return 1.0 * actual / 2 / possible;
 	}
 	
 	@Override
@@ -0,0 +1,158 @@
+package gory.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Partition of at most 10 summands from 0 to 63 packed into a long: summand i (0-based) takes bits
+ * 6i to 6i+5 and the number of summands takes bits 60 to 63. Distance, sum and oddness work on all
+ * summands at once (SWAR). For the differences even and odd lanes are handled separately, so every
+ * lane has the empty lane above it as room for a borrow or a carry.
+ */
+public final class PackedPartition {
+	public static final int MAX_LENGTH = 10;
+	public static final int MAX_SUMMAND = 63;
+
+	// code of partitions which do not fit
+	public static final long NONE = -1;
+
+	private static final int BITS = 6;
+	private static final int LENGTH_SHIFT = 60;
+	private static final long LANE = (1L << BITS) - 1;
+
+	// lowest bit of every lane
+	private static final long ONES;
+
+	// lowest bit of lanes 0, 2, 4, 6 and 8
+	private static final long EVEN_ONES;
+
+	// lanes 0, 2, 4, 6 and 8
+	private static final long EVEN;
+
+	// lowest bit of lanes 1, 3, 5, 7 and 9, right above every even lane
+	private static final long GUARDS;
+
+	static {
+		long ones = 0, evenOnes = 0;
+		for(int i=0; i<MAX_LENGTH; i++) {
+			ones |= 1L << (BITS * i);
+			if(i%2 == 0) evenOnes |= 1L << (BITS * i);
+		}
+		ONES = ones;
+		EVEN_ONES = evenOnes;
+		EVEN = evenOnes * LANE;
+		GUARDS = evenOnes << BITS;
+	}
+
+	private PackedPartition() {
+	}
+
+	public static long encode(int... summands) {
+		if(summands.length > MAX_LENGTH) throw new IllegalArgumentException("More than "+MAX_LENGTH+" summands");
+
+		long code = (long) summands.length << LENGTH_SHIFT;
+		for(int i=0; i<summands.length; i++) {
+			if(summands[i] < 0 || summands[i] > MAX_SUMMAND) throw new IllegalArgumentException("Summand "+summands[i]+" out of range");
+
+			code |= (long) summands[i] << (BITS * i);
+		}
+		return code;
+	}
+
+	/*
+	 * NONE if the partition has too many summands or a summand which is not a whole number from 0 to 63
+	 */
+	public static long encode(Partition partition) {
+		int length = (int) partition.getNumberOfDigits();
+		if(length > MAX_LENGTH) return NONE;
+
+		long code = (long) length << LENGTH_SHIFT;
+		for(int i=0; i<length; i++) {
+			double summand = partition.getAt(i + 1);
+			if(summand != Math.rint(summand) || summand < 0 || summand > MAX_SUMMAND) return NONE;
+
+			code |= (long) summand << (BITS * i);
+		}
+		return code;
+	}
+
+	public static Partition decode(long code) {
+		List<Double> summands = new ArrayList<>(getLength(code));
+		for(int i=1; i<=getLength(code); i++) {
+			summands.add(1.0 * getAt(code, i));
+		}
+		return new Partition(summands, null, false);
+	}
+
+	public static int getLength(long code) {
+		return (int) (code >>> LENGTH_SHIFT);
+	}
+
+	// position is 1-based
+	public static int getAt(long code, int position) {
+		return (int) ((code >>> (BITS * (position - 1))) & LANE);
+	}
+
+	public static long setAt(long code, int position, int summand) {
+		int shift = BITS * (position - 1);
+		return (code & ~(LANE << shift)) | ((long) summand << shift);
+	}
+
+	public static int getSumOfDigits(long code) {
+		// pairs of lanes added into 12 bit lanes, then all of them into the top one by a multiplication
+		long pairs = (code & EVEN) + ((code >>> BITS) & EVEN);
+		return (int) (((pairs * EVEN_ONES) >>> (2 * BITS * 4)) & 0xFFF);
+	}
+
+	public static int getOddness(long code) {
+		return Long.bitCount(code & ONES);
+	}
+
+	public static int getEvenness(long code) {
+		return getLength(code) - getOddness(code);
+	}
+
+	/*
+	 * Same as Partition.distanceTo: largest difference of summands at the same position, -1 for
+	 * partitions of different lengths
+	 */
+	public static int distance(long code1, long code2) {
+		if(getLength(code1) != getLength(code2)) return -1;
+
+		long even = getDifferences(code1, code2);
+		long odd = getDifferences(code1 >>> BITS, code2 >>> BITS);
+		int distance = 0;
+		for(int shift=0; shift<LENGTH_SHIFT; shift+=2*BITS) {
+			distance = Math.max(distance, (int) ((even >>> shift) & LANE));
+			distance = Math.max(distance, (int) ((odd >>> shift) & LANE));
+		}
+		return distance;
+	}
+
+	/*
+	 * True if both partitions have the same length and no summands at the same position differ by more than
+	 * the given distance
+	 */
+	public static boolean isWithin(long code1, long code2, int distance) {
+		if(getLength(code1) != getLength(code2) || distance < 0) return false;
+		if(distance >= MAX_SUMMAND) return true;
+
+		// a difference above the distance carries into the guard bit
+		long offset = EVEN_ONES * (MAX_SUMMAND - distance);
+		long even = getDifferences(code1, code2) + offset;
+		long odd = getDifferences(code1 >>> BITS, code2 >>> BITS) + offset;
+		return ((even | odd) & GUARDS) == 0;
+	}
+
+	// absolute differences of the even lanes, each in its own lane
+	private static long getDifferences(long code1, long code2) {
+		long x = code1 & EVEN, y = code2 & EVEN;
+
+		// 64 + x - y in every lane, the guard bit is left set where x >= y
+		long difference = (x | GUARDS) - y;
+		long negative = ((difference & GUARDS) >>> BITS) ^ EVEN_ONES;
+
+		// negated in two's complement where x < y
+		return ((difference & EVEN) ^ (negative * LANE)) + negative;
+	}
+}
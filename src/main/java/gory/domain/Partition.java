@@ -34,6 +34,19 @@ public class Partition {
 	@Getter @Setter
 	private Double w;
 	
+	// length lane above PackedPartition.MAX_LENGTH, so neither a code nor NONE
+	private static final long UNKNOWN_PACKED = 0xF000000000000000L;
+	
+	// cached in place of null for partitions without an IntPartition, compared by identity
+	private static final IntPartition NO_INT_PARTITION = new IntPartition();
+	
+	// derived from arr on first use, -1 or unknown until then and again after every change
+	private int evenness = -1;
+	private int oddness = -1;
+	private int rank = -1;
+	private volatile IntPartition intPartition;
+	private volatile long packed = UNKNOWN_PACKED;
+	
 	@Override
 	public String toString() {
 		List<String> stringSummonds = getSummands().stream().map(s -> s.toString()).collect(Collectors.toList());
@@ -106,8 +119,17 @@ public class Partition {
 	// position is 1-based
 	public double setAt(int position, int value) {
 		sumOfDigits = sumOfDigits - getAt(position) + value; 
+		changed();
 		return arr[position-1] = value;
 	}
+	
+	private void changed() {
+		evenness = -1;
+		oddness = -1;
+		rank = -1;
+		intPartition = null;
+		packed = UNKNOWN_PACKED;
+	}
 
 	public List<Double> getSummands() {
 		List<Double> summonds = new ArrayList<>(this.arr.length);
@@ -140,38 +162,79 @@ public class Partition {
 	}
 	
 	public int getEvenness() {
-		int evenness = 0;
-		for(double summand : getSummands()) {
-			if(summand%2 == 0) {
-				evenness++;
+		if(evenness < 0) {
+			int count = 0;
+			for(double summand : arr) {
+				if(summand%2 == 0) {
+					count++;
+				}
 			}
+			evenness = count;
 		}
 		return evenness;
 	}
 
 	public int getOddness() {
-		int oddness = 0;
-		for(double summand : getSummands()) {
-			if(summand%2 == 1) {
-				oddness++;
+		if(oddness < 0) {
+			int count = 0;
+			for(double summand : arr) {
+				if(summand%2 == 1) {
+					count++;
+				}
 			}
+			oddness = count;
 		}
 		return oddness;
 	}
 	
 	// https://en.wikipedia.org/wiki/Durfee_square
 	public int getRank() {
-		List<Double> summands = getSummands();
-		summands.sort(SUMMONDS_COMPARATOR); // just on case
+		if(rank >= 0) return rank;
+		
+		double[] summands = arr;
+		for(int i=1; i<arr.length; i++) {
+			if(arr[i] > arr[i-1]) {
+				// just on case
+				summands = arr.clone();
+				Arrays.sort(summands);
+				ArrayUtils.reverse(summands);
+				break;
+			}
+		}
 		
-		int rank;
-		for(rank=0; rank<getNumberOfDigits(); rank++) {
-			if(rank>summands.get(rank)) {
-				return rank;
+		int r;
+		for(r=0; r<summands.length; r++) {
+			if(r>summands[r]) {
+				break;
 			}
 		}
 		
-		return rank;
+		return rank = r;
+	}
+	
+	/*
+	 * Same partition with int summands, null if some summand is not a whole number
+	 */
+	public IntPartition getIntPartition() {
+		// one field like the packed code, null until known
+		IntPartition known = intPartition;
+		if(known == null) {
+			IntPartition valueOf = IntPartition.valueOf(this);
+			intPartition = known = valueOf == null ? NO_INT_PARTITION : valueOf;
+		}
+		return known == NO_INT_PARTITION ? null : known;
+	}
+	
+	/*
+	 * Code of PackedPartition, PackedPartition.NONE if the partition does not fit into it
+	 */
+	public long getPacked() {
+		// one field, so a thread seeing it set also sees the code; racing threads compute the same one
+		long code = packed;
+		if(code == UNKNOWN_PACKED) {
+			packed = code = PackedPartition.encode(this);
+		}
+		return code;
 	}
 	
 	public Partition normalize() {
@@ -180,6 +243,7 @@ public class Partition {
 		        .sorted(Comparator.reverseOrder())
 		        .mapToDouble(Double::doubleValue)
 		        .toArray();
+		changed();
 		
 		return this;
 	}
@@ -192,5 +256,6 @@ public class Partition {
 		for(int i=0; i<arr.length; i++) {
 			arr[i] = Math.round(accuracy * (arr[i] +  random.nextGaussian() * standardDeviation))/accuracy;
 		}
+		changed();
 	}
 }
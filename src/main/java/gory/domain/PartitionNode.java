@@ -39,7 +39,21 @@ public class PartitionNode extends Node {
 	@Override
 	public double distanceTo(INode node) {
 		if(node instanceof PartitionNode) {
-			return partition.distanceTo(((PartitionNode) node).getPartition());
+			Partition other = ((PartitionNode) node).getPartition();
+			
+			// small whole summands are compared all at once, other whole ones as ints
+			long packed = partition.getPacked();
+			long otherPacked = other.getPacked();
+			if(packed != PackedPartition.NONE && otherPacked != PackedPartition.NONE) {
+				return PackedPartition.distance(packed, otherPacked);
+			}
+			
+			IntPartition intPartition = partition.getIntPartition();
+			IntPartition otherIntPartition = other.getIntPartition();
+			if(intPartition != null && otherIntPartition != null) {
+				return intPartition.distanceTo(otherIntPartition);
+			}
+			return partition.distanceTo(other);
 		} else {
 			return -1;
 		}
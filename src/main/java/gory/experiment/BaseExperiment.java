@@ -20,8 +20,12 @@ import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.graphstream.stream.file.FileSinkDOT;
 
+import gory.algorithm.EnergyEstimate;
+import gory.algorithm.Percolation;
+import gory.domain.CliqueIndex;
 import gory.domain.Graph;
 import gory.domain.INode;
+import gory.domain.MetricsCache;
 import gory.domain.Partition;
 import gory.domain.PartitionNode;
 import gory.service.OutputLogger;
@@ -35,6 +39,10 @@ public abstract class BaseExperiment implements Experiment {
 
 	private static final NumberFormat NUMBER_FORMAT = NumberFormat.getInstance(Locale.US);
 
+	// with probes the energy is estimated by stochastic Lanczos quadrature instead of the full spectrum
+	protected int energyProbes;
+	protected int energySteps;
+
 	@AllArgsConstructor
 	@Getter
 	protected static class AverageAndStdDev {
@@ -94,6 +102,30 @@ public abstract class BaseExperiment implements Experiment {
 		return r;
 	}
 	
+	/*
+	 * Same as merge for histograms indexed by key, zero entries are left out like missing keys.
+	 * With normalize every histogram is divided by its total first.
+	 */
+	protected Map<Integer, AverageAndStdDev> mergeHistograms(List<int[]> histograms, boolean normalize) {
+		List<Map<Integer, ? extends Number>> items = new ArrayList<>();
+		for(int[] histogram : histograms) {
+			long total = 0;
+			for(int count : histogram) {
+				total += count;
+			}
+			
+			Map<Integer, Double> item = new TreeMap<>();
+			for(int key=0; key<histogram.length; key++) {
+				if(histogram[key] == 0) continue;
+				
+				item.put(key, normalize ? 1.0 * histogram[key] / total : histogram[key]);
+			}
+			items.add(item);
+		}
+		
+		return merge(items);
+	}
+	
 	protected String readProperty(Properties properties, String propertyName, String defaultValue) {
 		try {
 			return properties.getProperty(propertyName);
@@ -259,21 +291,13 @@ public abstract class BaseExperiment implements Experiment {
 		logger.writeLine("Nodes by cliques:");
 		logger.writeLine("");
 
+		CliqueIndex cliqueIndex = new CliqueIndex(cliques);
 		for(INode node : graph.getNodes()) {
 			String line = node.toString() + " " + node.getDegree();
 			int sum = 0;
-			for(Graph clique : cliques) {
-				boolean found = false;
-				for(INode cliqueNode : clique.getNodes()) {
-					if(cliqueNode.equals(node)) {
-						found = true;
-						break;
-					}
-				}
-				if(found) {
-					line += " |"+clique.getName()+"|";
-					sum++;
-				}
+			for(Graph clique : cliqueIndex.getCliques(node)) {
+				line += " |"+clique.getName()+"|";
+				sum++;
 			}
 			if(sum>0) {
 				line += " "+sum;
@@ -329,11 +353,7 @@ public abstract class BaseExperiment implements Experiment {
 
 	
 	protected Graph buildGraphOfCliques(Set<Graph> cliques, String name, int connectionDistance, boolean onlyConnected) {
-		Graph graph = new Graph(name, connectionDistance);
-		
-		for(Graph clique : cliques) {
-			graph.addNode(clique);
-		}
+		Graph graph = new CliqueIndex(cliques).buildGraphOfCliques(name, connectionDistance);
 
 		if(onlyConnected) {
 			Set<INode> disconnectedNodes = graph.getNodes().stream().filter(node -> node.getDegree() == 0).collect(Collectors.toSet());
@@ -437,12 +457,15 @@ public abstract class BaseExperiment implements Experiment {
 	}
 	
 	public void logDistributionOfCliques(Graph graph, OutputLogger logger) {
-		logDistributionOfCliques(graph.getCliques(), logger);
+		logDistributionOfCliques(graph.getCliquesCountBySize(), logger);
 	}
 
 	public void logDistributionOfCliques(Set<Graph> cliques, OutputLogger logger) {
-		Map<Integer, AtomicInteger> cliquesCountBySize = getCliquesCountBySize(cliques);
-		Map<Integer, Double> cliqueSizeDistribution = getCliqueSizeDistribution(cliques);
+		logDistributionOfCliques(getCliquesCountBySize(cliques), logger);
+	}
+
+	public void logDistributionOfCliques(Map<Integer, AtomicInteger> cliquesCountBySize, OutputLogger logger) {
+		Map<Integer, Double> cliqueSizeDistribution = getCliqueSizeDistribution(cliquesCountBySize);
 		logger.writeLine("Distribution of cliques:");
 		for(int cliqueSize : cliqueSizeDistribution.keySet()) {
 			logger.writeLine(cliqueSize+" "+cliquesCountBySize.get(cliqueSize).get()+" "+df4.format(cliqueSizeDistribution.get(cliqueSize)));
@@ -451,8 +474,10 @@ public abstract class BaseExperiment implements Experiment {
 	}
 	
 	public Map<Integer, Double> getCliqueSizeDistribution(Set<Graph> cliques) {
-		Map<Integer, AtomicInteger> cliquesCountBySize = getCliquesCountBySize(cliques);
-		
+		return getCliqueSizeDistribution(getCliquesCountBySize(cliques));
+	}
+
+	public Map<Integer, Double> getCliqueSizeDistribution(Map<Integer, AtomicInteger> cliquesCountBySize) {
 		int numCliques = 0;
 		for(AtomicInteger numcliquesForSize : cliquesCountBySize.values()) {
 			numCliques += numcliquesForSize.get();
@@ -573,7 +598,60 @@ public abstract class BaseExperiment implements Experiment {
 
 	public void logEnergy(Graph graph, OutputLogger logger) {
 		logger.writeLine("Energy for "+graph.getName());
-		logger.writeLine(""+df4.format(graph.getEnergy()));
+		if(energyProbes > 0) {
+			EnergyEstimate estimate = graph.getEnergyEstimate(energyProbes, energySteps);
+			logger.writeLine(df4.format(estimate.getEnergy())
+					+" (95% confidence interval "+df4.format(estimate.getLowerBound())+" - "+df4.format(estimate.getUpperBound())+")");
+		} else {
+			logger.writeLine(""+df4.format(graph.getEnergy()));
+		}
+		logger.writeLine("");
+	}
+
+	/*
+	 * Components while nodes are removed, averaged over random orders (standard deviation in brackets)
+	 */
+	public void logPercolation(List<Percolation> percolations, OutputLogger logger) {
+		List<Map<Integer, ? extends Number>> components = new ArrayList<>();
+		List<Map<Integer, ? extends Number>> largestComponents = new ArrayList<>();
+		List<Map<Integer, ? extends Number>> nodes = new ArrayList<>();
+		List<Integer> connectivityLossSteps = new ArrayList<>();
+		for(Percolation percolation : percolations) {
+			Map<Integer, Integer> componentsByStep = new TreeMap<>();
+			Map<Integer, Integer> largestComponentByStep = new TreeMap<>();
+			Map<Integer, Integer> nodesByStep = new TreeMap<>();
+			for(int step=0; step<=percolation.getNumberOfSteps(); step++) {
+				componentsByStep.put(step, percolation.getNumberOfComponents(step));
+				largestComponentByStep.put(step, percolation.getLargestComponentSize(step));
+				nodesByStep.put(step, percolation.getNumberOfNodes(step));
+			}
+			components.add(componentsByStep);
+			largestComponents.add(largestComponentByStep);
+			nodes.add(nodesByStep);
+			
+			if(percolation.getConnectivityLossStep() >= 0) {
+				connectivityLossSteps.add(percolation.getConnectivityLossStep());
+			}
+		}
+		
+		Map<Integer, AverageAndStdDev> averageComponents = merge(components);
+		Map<Integer, AverageAndStdDev> averageLargestComponents = merge(largestComponents);
+		Map<Integer, AverageAndStdDev> averageNodes = merge(nodes);
+		
+		logger.writeLine("Percolation over "+percolations.size()+" random orders (step, nodes, components, largest component):");
+		for(int step : averageComponents.keySet()) {
+			logger.writeLine(step+" "+averageNodes.get(step)+" "+averageComponents.get(step)+" "+averageLargestComponents.get(step));
+		}
+		logger.writeLine("Connectivity lost at step "+getAverageAndStdDev(connectivityLossSteps)+" in "+connectivityLossSteps.size()+" orders");
+		logger.writeLine("");
+	}
+
+	public void logMetricsCache(Graph graph, OutputLogger logger) {
+		MetricsCache metricsCache = graph.getMetricsCache();
+		logger.writeLine("Cached metrics for "+graph.getName()+" (hits, misses):");
+		for(String metric : metricsCache.getMetrics()) {
+			logger.writeLine(metric+" "+metricsCache.getHits(metric)+" "+metricsCache.getMisses(metric));
+		}
 		logger.writeLine("");
 	}
 
@@ -24,6 +24,7 @@ import gory.domain.Partition;
 import gory.domain.PartitionNode;
 import gory.service.OutputLogger;
 import gory.service.PartitionBuilder;
+import gory.service.PartitionRanker;
 import lombok.Cleanup;
 
 public class Experiment1 extends BaseExperiment {
@@ -62,6 +63,7 @@ public class Experiment1 extends BaseExperiment {
 	private boolean logCheegerConstant;
 	private boolean logGlobalOverlapping;
 	private boolean logAverageRank;
+	private boolean logMetricsCache;
 	private boolean displayGraph;
 	private boolean displayGraphOfCliques;
 	private boolean saveGraphInDotFormat;
@@ -72,6 +74,7 @@ public class Experiment1 extends BaseExperiment {
 	private int geneAccuracy;
 	private boolean saveResultAsCreate;
 	private Integer maxAllowedDegreeForClique;
+	private int parallelCliquesThreshold;
 	private Map<Partition, Partition> replace = new HashMap<>();
 	private Set<Partition> create = new HashSet<>(); 
 	private Set<Partition> insert = new HashSet<>(); 
@@ -90,11 +93,14 @@ public class Experiment1 extends BaseExperiment {
     		numberOfDigits = (int) create.iterator().next().getNumberOfDigits();
     		graph = new Graph(numberOfDigits*numberOfDigits+" - "+numberOfDigits+" graph", realDistance);
     		graph.getProhibitedOddness().addAll(prohibitedOddness);
+    		graph.setParallelCliquesThreshold(parallelCliquesThreshold);
     		
+    		List<INode> nodes = new ArrayList<>();
 	    	for(Partition partition : create) {
 	    		partition.applyNormalDistribution(standardDeviation, geneAccuracy);
-	    		graph.addNode(new PartitionNode(partition, null, orderSummonds));
+	    		nodes.add(new PartitionNode(partition, null, orderSummonds));
 	    	}
+	    	graph.addAll(nodes);
     	} else { 
 			PartitionNode headNode;
 			if(head == null) {
@@ -111,15 +117,36 @@ public class Experiment1 extends BaseExperiment {
 			
     		graph = new Graph(sumOfDigits+" - "+numberOfDigits+" graph", realDistance);
        		graph.getProhibitedOddness().addAll(prohibitedOddness);
+       		graph.setParallelCliquesThreshold(parallelCliquesThreshold);
        	    		
 	    	graph.addNode(headNode);
 	    	
-	    	List<Partition> partitions = PartitionBuilder.build(sumOfDigits, numberOfDigits);
+	    	List<Integer> sums = new ArrayList<>();
+	    	sums.add(sumOfDigits);
 	    	if(extendedFamily && extendedFamilyDelta>0) {
-	    		partitions.addAll(PartitionBuilder.build(numberOfDigits*numberOfDigits-extendedFamilyDelta, numberOfDigits));
-	    		partitions.addAll(PartitionBuilder.build(numberOfDigits*numberOfDigits+extendedFamilyDelta, numberOfDigits));
+	    		if(numberOfDigits*numberOfDigits-extendedFamilyDelta >= 0) {
+	    			sums.add(numberOfDigits*numberOfDigits-extendedFamilyDelta);
+	    		}
+	    		sums.add(numberOfDigits*numberOfDigits+extendedFamilyDelta);
+	    	}
+	    	
+	    	// weights are spread over the whole family, not only over the part within the distance
+	    	long numberOfPartitions = 0;
+	    	for(int sum : sums) {
+	    		numberOfPartitions += new PartitionRanker(sum, numberOfDigits).getCount();
+	    	}
+	    	int familySize = (int) Math.min(numberOfPartitions, Integer.MAX_VALUE - 1);
+	    	
+	    	Partition headPartition = headNode.getPartition();
+	    	boolean withinDistance = !familyMxmPlusOne && headPartition.getIntPartition() != null 
+	    			&& headPartition.getNumberOfDigits() == numberOfDigits;
+	    	List<Partition> partitions = new ArrayList<>();
+	    	for(int sum : sums) {
+	    		// only the partitions within the distance are made, unless the family is changed before the distance is taken
+	    		partitions.addAll(withinDistance ? PartitionBuilder.ball(headPartition, sum, distance, null) : PartitionBuilder.build(sum, numberOfDigits));
 	    	}
 	    	Random random = new Random();
+	    	List<INode> familyNodes = new ArrayList<>();
 	    	for(Partition partition : partitions) {
 	    		if(familyMxmPlusOne) {
 		    		if(partition.getAt(numberOfDigits) == 0) {
@@ -138,10 +165,11 @@ public class Experiment1 extends BaseExperiment {
 	    				|| onlyRight && partition.getAt(1) + 1 == headNode.getPartition().getAt(1)) {
 
 		    		partition.applyNormalDistribution(standardDeviation, geneAccuracy);
-		    		partition.setW(-1.0 + 2.0 * random.nextInt(partitions.size()+1)/partitions.size());
-	    			graph.addNode(new PartitionNode(partition, partition.getW()));
+		    		partition.setW(-1.0 + 2.0 * random.nextInt(familySize+1)/familySize);
+	    			familyNodes.add(new PartitionNode(partition, partition.getW()));
 	    		}
 	    	}
+	    	graph.addAll(familyNodes);
 	    	
 	    	for(Partition oldPartition : replace.keySet()) {
 	    		Partition newPartition = replace.get(oldPartition);
@@ -278,6 +306,10 @@ public class Experiment1 extends BaseExperiment {
     		logAverageRank(graph, logger);
     	}
     	
+    	if(logMetricsCache) {
+    		logMetricsCache(graph, logger);
+    	}
+    	
     	if(displayGraph) {
     		displayGraph(graph, "graph");
     	}
@@ -373,9 +405,12 @@ public class Experiment1 extends BaseExperiment {
 			logCharacteristicPathLength = readProperty(properties, "logCharacteristicPathLength", false);
 			logAverageEfficiency = readProperty(properties, "logAverageEfficiency", false);
 			logEnergy = readProperty(properties, "logEnergy", false);
+			energyProbes = readProperty(properties, "energyProbes", 0);
+			energySteps = readProperty(properties, "energySteps", 50);
 			logCheegerConstant = readProperty(properties, "logCheegerConstant", false);
 			logGlobalOverlapping = readProperty(properties, "logGlobalOverlapping", false);
 			logAverageRank = readProperty(properties, "logAverageRank", false);
+			logMetricsCache = readProperty(properties, "logMetricsCache", false);
 			
 			displayGraph = readProperty(properties, "displayGraph", false);
 			displayGraphOfCliques = readProperty(properties, "displayGraphOfCliques", false);
@@ -423,6 +458,7 @@ public class Experiment1 extends BaseExperiment {
 			maxAllowedDegreeForClique = properties.getProperty("maxAllowedDegreeForClique", null) == null ? 
 					null : 
 					readProperty(properties, "maxAllowedDegreeForClique", Integer.MAX_VALUE);
+			parallelCliquesThreshold = readProperty(properties, "parallelCliquesThreshold", 1000);
 		} catch (IOException ex) {
 			ex.printStackTrace();
 		} finally {
@@ -16,6 +16,7 @@ import gory.domain.Partition;
 import gory.domain.PartitionNode;
 import gory.service.OutputLogger;
 import gory.service.PartitionBuilder;
+import gory.service.PartitionRanker;
 
 public class Experiment2 extends BaseExperiment {
 	private int numberOfRuns; // K
@@ -41,7 +42,8 @@ public class Experiment2 extends BaseExperiment {
     	
     	readParameters();
 		
-    	List<Partition> partitions = PartitionBuilder.build(sumOfDigits, numberOfDigits);
+    	List<Partition> partitions = null;
+    	PartitionRanker ranker = null;
     	if(onlyFamilyOfTheHead) {
     		List<Double> summands = new ArrayList<>();
         	for(int i=1; i<=2*numberOfDigits-1; i=i+2) {
@@ -50,28 +52,23 @@ public class Experiment2 extends BaseExperiment {
         	
         	Partition head = new Partition(summands);
         	List<Partition> familyOfTheHead = new ArrayList<>();
-        	for(Partition partition : partitions) {
-        		double d = head.distanceTo(partition);
-        		if(d <= 0 || d > distance) {
+        	for(Partition partition : PartitionBuilder.ball(head, sumOfDigits, distance, null)) {
+        		if(head.distanceTo(partition) <= 0) {
         			continue;
         		}
         	
         		familyOfTheHead.add(partition);
         	}
         	partitions = familyOfTheHead;
+    	} else {
+    		// the whole family is picked from by rank, without building it
+    		ranker = new PartitionRanker(sumOfDigits, numberOfDigits);
     	}
     	
     	Random random = new Random();
     	
     	if(numberOfRuns<=1) {
-	    	INode node = new PartitionNode(partitions.get(random.nextInt(partitions.size())));
-	    	Graph graph = new Graph(sumOfDigits+" - "+numberOfDigits+" graph", distance);
-	    	graph.addNode(node);
-	    	
-	    	for(int pick=1; pick<=numberOfRandomPicks; pick++) {
-	    		node = new PartitionNode(partitions.get(random.nextInt(partitions.size())));
-	        	graph.addNode(node);
-	    	}
+	    	Graph graph = buildGraph(partitions, ranker, random);
 	
 	    	if(logNodes) {
 	    		logNodes(graph, logger);
@@ -93,16 +90,15 @@ public class Experiment2 extends BaseExperiment {
 	    		logStatsOfDegrees(graph, logger); 
 	    	}
 			
-	    	if(logCliques || logDistributionOfCliques) {
+	    	if(logCliques) {
 	    		Set<Graph> cliques = graph.getCliques();
+	    		logCliques(graph, cliques, logger);
 	    		
-	    		if(logCliques) {
-	    			logCliques(graph, cliques, logger);
-	    		}
-	    	
 	    		if(logDistributionOfCliques) {
 	    			logDistributionOfCliques(cliques, logger);
 	    		}
+	    	} else if(logDistributionOfCliques) {
+	    		logDistributionOfCliques(graph, logger);
 	    	}
 	    	
 	    	if(logDiameter) {
@@ -116,18 +112,10 @@ public class Experiment2 extends BaseExperiment {
     	} else {
     		List<Double> clusteringCoefficients = new ArrayList<>();
     		List<Map<Integer, ? extends Number>> nodeDegreeDistributions = new ArrayList<>();
-    		List<Map<Integer, ? extends Number>> cliqueSizeDistributions = new ArrayList<>();
-    		List<Map<Integer, ? extends Number>> cliqueCountDistributions = new ArrayList<>();
+    		List<int[]> cliqueCountHistograms = new ArrayList<>();
     		
     		for(int run=1; run<=numberOfRuns; run++) {
-		    	INode node = new PartitionNode(partitions.get(random.nextInt(partitions.size())));
-		    	Graph graph = new Graph(sumOfDigits+" - "+numberOfDigits+" graph", distance);
-		    	graph.addNode(node);
-		    	
-		    	for(int pick=1; pick<=numberOfRandomPicks; pick++) {
-		    		node = new PartitionNode(partitions.get(random.nextInt(partitions.size())));
-		        	graph.addNode(node);
-		    	}
+		    	Graph graph = buildGraph(partitions, ranker, random);
 
 		    	if(logClusteringCoefficient) {
 		    		clusteringCoefficients.add(graph.getClusteringCoefficientUsingMatrix());
@@ -138,9 +126,7 @@ public class Experiment2 extends BaseExperiment {
 		    	}
 
 		    	if(logDistributionOfCliques) {
-		    		Set<Graph> cliques = graph.getCliques();
-		    		cliqueSizeDistributions.add(getCliqueSizeDistribution(cliques));
-		    		cliqueCountDistributions.add(this.getCliquesCountBySize(cliques));
+		    		cliqueCountHistograms.add(graph.getCliqueStatistics().getCountBySize());
 		    	}
     		}
 
@@ -161,8 +147,8 @@ public class Experiment2 extends BaseExperiment {
 	    	}
 
 	    	if(logDistributionOfCliques) {
-	    		Map<Integer, AverageAndStdDev> cliqueSizeDistributionResults = merge(cliqueSizeDistributions);
-	    		Map<Integer, AverageAndStdDev> cliqueCountDistributionResults = merge(cliqueCountDistributions);
+	    		Map<Integer, AverageAndStdDev> cliqueSizeDistributionResults = mergeHistograms(cliqueCountHistograms, true);
+	    		Map<Integer, AverageAndStdDev> cliqueCountDistributionResults = mergeHistograms(cliqueCountHistograms, false);
 	    		logger.writeLine("Distribution of cliques:");
 	    		for(int degree : cliqueSizeDistributionResults.keySet()) {
 	    			logger.writeLine(degree+" "+cliqueCountDistributionResults.get(degree)+" "+cliqueSizeDistributionResults.get(degree));
@@ -172,6 +158,23 @@ public class Experiment2 extends BaseExperiment {
     	}
 	}
 	
+	private Graph buildGraph(List<Partition> partitions, PartitionRanker ranker, Random random) {
+		// the first pick is the seed node
+		List<INode> nodes = new ArrayList<>();
+		for(int pick=0; pick<=numberOfRandomPicks; pick++) {
+			if(partitions == null) {
+				nodes.add(new PartitionNode(ranker.getRandomPartition(random)));
+			} else {
+				nodes.add(new PartitionNode(partitions.get(random.nextInt(partitions.size()))));
+			}
+		}
+		
+		Graph graph = new Graph(sumOfDigits+" - "+numberOfDigits+" graph", distance);
+		graph.addAll(nodes);
+		
+		return graph;
+	}
+	
 	private void readParameters() {
 		InputStream input = null;
 		try {
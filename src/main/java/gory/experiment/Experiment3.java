@@ -9,8 +9,10 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import gory.domain.Graph;
+import gory.domain.INode;
 import gory.domain.Partition;
 import gory.domain.PartitionNode;
 import gory.service.OutputLogger;
@@ -22,6 +24,7 @@ public class Experiment3 extends BaseExperiment {
 	private double probabilityOfMistake; 
 	private int distance; // d
 	private int numberOfDigits; // m
+	private int parallelCliquesThreshold;
 	
 	private boolean removeHead;
 	private boolean logNodes;
@@ -38,6 +41,7 @@ public class Experiment3 extends BaseExperiment {
 	private boolean logEnergy;
 	private boolean logCheegerConstant;
 	private boolean logAverageRank;
+	private boolean logMetricsCache;
 	private boolean displayGraph;
 	private boolean saveGraphInDotFormat;
 
@@ -85,6 +89,7 @@ public class Experiment3 extends BaseExperiment {
 	        	Partition head = new Partition(summands);
 	
 	        	Graph graph = new Graph("Graph for run #"+run+" and step #"+step, distance);
+	        	graph.setParallelCliquesThreshold(parallelCliquesThreshold);
 	        	graph.addNode(new PartitionNode(head));
 	        	
 	        	List<Partition> partitions = new ArrayList<>();
@@ -137,9 +142,11 @@ public class Experiment3 extends BaseExperiment {
 	        	partitions.addAll(rightPartitions);
 	        	partitions.addAll(leftPartitions);
 	        	
+	        	List<INode> nodes = new ArrayList<>();
 	        	for(Partition partition : partitions) {
-	        		graph.addNode(new PartitionNode(partition));
-	        	} 
+	        		nodes.add(new PartitionNode(partition));
+	        	}
+	        	graph.addAll(nodes);
 	        	
 		    	if(removeHead) {
 		    		graph.removeNode(new PartitionNode(head));
@@ -149,7 +156,7 @@ public class Experiment3 extends BaseExperiment {
 	        	prevHead = head;
 	        	
 	        	Set<Graph> cliques = null;
-	        	if(logCliques || logDistributionOfCliques || logNodesByCliques || logGlobalOverlapping
+	        	if(logCliques || logNodesByCliques || logGlobalOverlapping
 	        			|| displayGraphOfCliques || logDensityAdjacentMatrixForGraphOfCliques) {
 	        		cliques = graph.getCliques();
 	        	}
@@ -183,8 +190,9 @@ public class Experiment3 extends BaseExperiment {
 	    		}
 	    	
 	    		if(logDistributionOfCliques) {
-		    		cliqueCountDistributions.add(getCliquesCountBySize(cliques));
-	    			logDistributionOfCliques(cliques, logger);
+	    			Map<Integer, AtomicInteger> cliquesCountBySize = cliques != null ? getCliquesCountBySize(cliques) : graph.getCliquesCountBySize();
+		    		cliqueCountDistributions.add(cliquesCountBySize);
+	    			logDistributionOfCliques(cliquesCountBySize, logger);
 	    		}
 	    		
 	    		if(logNodesByCliques) {
@@ -230,6 +238,10 @@ public class Experiment3 extends BaseExperiment {
 	        		logAverageRank(graph, logger);
 	        	}
 	        	
+	        	if(logMetricsCache) {
+	        		logMetricsCache(graph, logger);
+	        	}
+	        	
 	        	if(displayGraph) {
 	        		displayGraph(graph, "graph");
 	        	}
@@ -311,6 +323,7 @@ public class Experiment3 extends BaseExperiment {
 			probabilityOfMistake = readProperty(properties, "probabilityOfMistake", 0.1);
 			numberOfDigits = readProperty(properties, "m", 4);
 			distance = readProperty(properties, "d", 1);
+			parallelCliquesThreshold = readProperty(properties, "parallelCliquesThreshold", 1000);
 
 			removeHead = readProperty(properties, "removeHead", false);
 			logNodes = readProperty(properties, "logNodes", false);
@@ -327,9 +340,12 @@ public class Experiment3 extends BaseExperiment {
 			logCharacteristicPathLength = readProperty(properties, "logCharacteristicPathLength", false);
 			logAverageEfficiency = readProperty(properties, "logAverageEfficiency", false);
 			logEnergy = readProperty(properties, "logEnergy", false);
+			energyProbes = readProperty(properties, "energyProbes", 0);
+			energySteps = readProperty(properties, "energySteps", 50);
 			logCheegerConstant = readProperty(properties, "logCheegerConstant", false);
 			logGlobalOverlapping = readProperty(properties, "logGlobalOverlapping", false);
 			logAverageRank = readProperty(properties, "logAverageRank", false);
+			logMetricsCache = readProperty(properties, "logMetricsCache", false);
 			
 			displayGraph = readProperty(properties, "displayGraph", false);
 			displayGraphOfCliques = readProperty(properties, "displayGraphOfCliques", false);
@@ -8,10 +8,15 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.TreeMap;
 import java.util.HashSet;
 import java.util.concurrent.ThreadLocalRandom;
 
+import gory.algorithm.BronKerbosch3;
+import gory.algorithm.Percolation;
+import gory.domain.CompactGraph;
+import gory.domain.DynamicCliqueIndex;
 import gory.domain.Graph;
 import gory.domain.INode;
 import gory.domain.Node;
@@ -29,6 +34,9 @@ public class Experiment4 extends BaseExperiment {
 	private boolean deleteAnyNode;
 	private int deleteAnyCliqueOfSize;
 	private int diameterThreshold;
+	private int parallelCliquesThreshold;
+	private boolean maintainCliques;
+	private int percolationRuns;
 	private Set<Partition> create = new HashSet<>(); 
 	private boolean removeHead;
 	private boolean logNodes;
@@ -47,6 +55,7 @@ public class Experiment4 extends BaseExperiment {
 	private boolean logEnergy;
 	private boolean logCheegerConstant;
 	private boolean logEachStep;
+	private boolean logMetricsCache;
 	private boolean displayGraph;
 	private boolean displayGraphOfCliques;
 	private boolean saveGraphInDotFormat;
@@ -65,13 +74,16 @@ public class Experiment4 extends BaseExperiment {
     		}
 
     		Graph graph = new Graph("Graph", distance);
+    		graph.setParallelCliquesThreshold(parallelCliquesThreshold);
 	    	
     		if(!create.isEmpty()) {
         		numberOfDigits = (int) create.iterator().next().getNumberOfDigits();
         		
+        		List<INode> nodes = new ArrayList<>();
     	    	for(Partition partition : create) {
-    	    		graph.addNode(new PartitionNode(partition));
+    	    		nodes.add(new PartitionNode(partition));
     	    	}
+    	    	graph.addAll(nodes);
     		} else {
 				List<Double> summands = new ArrayList<>();
 		    	for(int i=1; i<=2*numberOfDigits-1; i=i+2) {
@@ -80,20 +92,27 @@ public class Experiment4 extends BaseExperiment {
 		    	PartitionNode headNode = new PartitionNode(new Partition(summands));
 		    	graph.addNode(headNode);
 		    	
-		    	List<Partition> partitions = PartitionBuilder.build(numberOfDigits*numberOfDigits, numberOfDigits);
-		    	for(Partition partition : partitions) {
-		    		double d = headNode.distanceTo(new PartitionNode(partition));
-		    		if(d <= 0 || d > distance) {
-		    			continue;
-		    		}
-		
-		    		graph.addNode(new PartitionNode(partition));
+		    	List<INode> familyNodes = new ArrayList<>();
+		    	for(Partition partition : PartitionBuilder.ball(headNode.getPartition(), distance, null)) {
+		    		if(partition.equals(headNode.getPartition())) continue;
+		    		
+		    		familyNodes.add(new PartitionNode(partition));
 		    	}
+		    	graph.addAll(familyNodes);
 		    	
 		    	if(removeHead) {
 		    		graph.removeNode(headNode);
 		    	}
     		}
+    		
+    		if(maintainCliques) {
+    			graph.setCliqueIndex(new DynamicCliqueIndex(graph));
+    		}
+    		
+    		List<Percolation> percolations = null;
+    		if(percolationRuns > 0) {
+    			percolations = getPercolations(graph);
+    		}
 	    	
 	    	List<Graph> cliques = null;
 	    	Graph graphOfCliques;
@@ -102,16 +121,17 @@ public class Experiment4 extends BaseExperiment {
 				Set<Graph> cliquesSet = graph.getCliques();
 				cliques = new ArrayList<>(cliquesSet);
 				
-				graphOfCliques = buildGraphOfCliques(cliquesSet, "Graph of cliques");
+				graphOfCliques = getGraphOfCliques(graph, cliquesSet);
 	
-				int diameter = Integer.MAX_VALUE;
+				Graph measuredGraph = null;
 				if(deleteAnyNode) {
-					diameter = graph.getDiameter();
+					measuredGraph = graph;
 				} else if(deleteAnyClique || deleteAnyCliqueOfSize>0) {
-					diameter = graphOfCliques.getDiameter();
+					measuredGraph = graphOfCliques;
 				}
 				
-				if(diameter >= diameterThreshold) {
+				if(measuredGraph == null || measuredGraph.getDiameterAtLeast(diameterThreshold) >= diameterThreshold) {
+					int diameter = measuredGraph == null ? Integer.MAX_VALUE : measuredGraph.getDiameter();
 					logger.writeLine("Diameter is "+diameter+". Exiting.");
 					break;
 				}
@@ -164,12 +184,44 @@ public class Experiment4 extends BaseExperiment {
 	    		}
 			}
 			
+			if(percolations != null) {
+				logPercolation(percolations, logger);
+			}
+			
     		if(!logEachStep) {
     			doLoggingAfterStep(graph, logger, runNum, stepNum);
     		}
     	}
 	}
 
+	/*
+	 * Random deletion orders replayed offline on the graph as it is now. Cliques are drawn from the
+	 * ones found at the start, the loop above picks them from the cliques left after every step.
+	 */
+	private List<Percolation> getPercolations(Graph graph) {
+		CompactGraph compactGraph = graph.getCompactGraph();
+		
+		List<int[]> cliques = null;
+		if(!deleteAnyNode && (deleteAnyClique || deleteAnyCliqueOfSize>0)) {
+			List<int[]> foundCliques = new ArrayList<>();
+			new BronKerbosch3().forEachClique(compactGraph, null, (clique, size) -> {
+				if(deleteAnyClique || size == deleteAnyCliqueOfSize) {
+					foundCliques.add(Arrays.copyOf(clique, size));
+				}
+			});
+			cliques = foundCliques;
+		}
+		
+		return Percolation.run(compactGraph, cliques, percolationRuns, ThreadLocalRandom.current().nextLong());
+	}
+
+	private Graph getGraphOfCliques(Graph graph, Set<Graph> cliques) {
+		if(graph.getCliqueIndex() != null) {
+			return graph.getCliqueIndex().getGraphOfCliques();
+		}
+		return buildGraphOfCliques(cliques, "Graph of cliques");
+	}
+
 	private void doLoggingAfterStep(Graph graph, OutputLogger logger, int runNum, int stepNum) {
 		logger.writeLine("Step number: "+stepNum);
 		logger.writeLine("");
@@ -180,7 +232,7 @@ public class Experiment4 extends BaseExperiment {
 			Set<Graph> cliquesSet = graph.getCliques();
 			cliques = new ArrayList<>(cliquesSet);
 			if(displayGraphOfCliques || logGraphOfCliquesDiameter || logDensityAdjacentMatrixForGraphOfCliques) {
-				graphOfCliques = buildGraphOfCliques(cliquesSet, "Graph of cliques");
+				graphOfCliques = getGraphOfCliques(graph, cliquesSet);
 			}
 		}
 		
@@ -243,6 +295,10 @@ public class Experiment4 extends BaseExperiment {
     	if(logCheegerConstant) {
     		logCheegerConstant(graph, logger);
     	}
+    	
+    	if(logMetricsCache) {
+    		logMetricsCache(graph, logger);
+    	}
 
 		String fileName = "graph"+(numberOfRuns == 1 ? "" : "-"+runNum)+"-"+stepNum;
 		
@@ -286,6 +342,9 @@ public class Experiment4 extends BaseExperiment {
 			deleteAnyClique = readProperty(properties, "deleteAnyClique", false);
 			deleteAnyCliqueOfSize = readProperty(properties, "deleteAnyCliqueOfSize", 0);
 			diameterThreshold = readProperty(properties, "diameterThreshold", 0);
+			parallelCliquesThreshold = readProperty(properties, "parallelCliquesThreshold", 1000);
+			maintainCliques = readProperty(properties, "maintainCliques", true);
+			percolationRuns = readProperty(properties, "percolationRuns", 0);
 			removeHead = readProperty(properties, "removeHead", false);
 			logNodes = readProperty(properties, "logNodes", false);
 			logMatrix = readProperty(properties, "logMatrix", false);
@@ -301,8 +360,11 @@ public class Experiment4 extends BaseExperiment {
 			logCharacteristicPathLength = readProperty(properties, "logCharacteristicPathLength", false);
 			logAverageEfficiency = readProperty(properties, "logAverageEfficiency", false);
 			logEnergy = readProperty(properties, "logEnergy", false);
+			energyProbes = readProperty(properties, "energyProbes", 0);
+			energySteps = readProperty(properties, "energySteps", 50);
 			logCheegerConstant = readProperty(properties, "logCheegerConstant", false);
 			logEachStep = readProperty(properties, "logEachStep", false);
+			logMetricsCache = readProperty(properties, "logMetricsCache", false);
 			
 			displayGraph = readProperty(properties, "displayGraph", false);
 			displayGraphOfCliques = readProperty(properties, "displayGraphOfCliques", false);
@@ -87,7 +87,7 @@ public class Experiment5 extends BaseExperiment {
         		for(int j=1; j<newNodes.size(); j++) {
         			if(i == j) continue;
         			
-        			newNodes.get(i).connect(newNodes.get(j));
+        			graph.connect(newNodes.get(i), newNodes.get(j));
         		}
     		}
     		
@@ -100,7 +100,7 @@ public class Experiment5 extends BaseExperiment {
     					
     					double p = rand.nextInt(100)/100.0;
     					if(p>=0 && p<probabilityToConnect && oldNode.getDegree()<maxDegree && newNode.getDegree()<maxDegree) {
-        					newNode.connect(oldNode);
+        					graph.connect(newNode, oldNode);
 
         					if(newNode.getDegree()>=maxDegree) {
         						break;
@@ -243,6 +243,8 @@ public class Experiment5 extends BaseExperiment {
 			logCharacteristicPathLength = readProperty(properties, "logCharacteristicPathLength", false);
 			logAverageEfficiency = readProperty(properties, "logAverageEfficiency", false);
 			logEnergy = readProperty(properties, "logEnergy", false);
+			energyProbes = readProperty(properties, "energyProbes", 0);
+			energySteps = readProperty(properties, "energySteps", 50);
 			logCheegerConstant = readProperty(properties, "logCheegerConstant", false);
 			
 			logCliques = readProperty(properties, "logCliques", false);
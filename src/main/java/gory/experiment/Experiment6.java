@@ -71,7 +71,7 @@ public class Experiment6 extends BaseExperiment {
         		for(int k=0; k<thresholds.size(); k++) {
         			double threshold = thresholds.get(k);
         			if(Math.abs(values1.get(k) - values2.get(k))<threshold) {
-        				node1.connect(node2);
+        				graph.connect(node1, node2);
         				break;
         			}
         		}
@@ -10,6 +10,7 @@ import java.util.List;
 import java.util.Properties;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -18,7 +19,7 @@ import gory.domain.INode;
 import gory.domain.Partition;
 import gory.domain.PartitionNode;
 import gory.service.OutputLogger;
-import gory.service.PartitionBuilder;
+import gory.service.PartitionSampler;
 
 public class Experiment7 extends BaseExperiment {
 	private static final String PROPERTIES_FILE = "experiment7.properties";
@@ -42,6 +43,7 @@ public class Experiment7 extends BaseExperiment {
 	private boolean logConfidenceInterval;
 	private boolean generateARandom;
 	private boolean generateBRandom;
+	private boolean uniformRandom;
 
 	private boolean logHammingDistance;
 	private boolean logPayoutMatrix;
@@ -69,15 +71,18 @@ public class Experiment7 extends BaseExperiment {
     	};
     	String[][] rows = new String[numberOfRuns][headers.length];
     	
+    	PartitionSampler aSampler = generateARandom ? createSampler(allAPartitions) : null;
+    	PartitionSampler bSampler = generateBRandom ? createSampler(allBPartitions) : null;
+    	
     	List<Double> distances = new ArrayList<>();
     	StringBuilder line = new StringBuilder();
     	for(int i=1; i<=numberOfRuns; i++) {
         	Graph graphA = buildGraph("Graph A", 
-        			generateARandom ? PartitionBuilder.buildRandom((int) allAPartitions.get(0).getSumOfDigits(), (int) allAPartitions.get(0).getNumberOfDigits(), numPartitionsToSelect) : allAPartitions, 
+        			generateARandom ? aSampler.sample(ThreadLocalRandom.current(), numPartitionsToSelect) : allAPartitions, 
         			numPartitionsToSelect, 
         			distanceA);
         	Graph graphB = buildGraph("Graph B", 
-        			generateBRandom ? PartitionBuilder.buildRandom((int) allBPartitions.get(0).getSumOfDigits(), (int) allBPartitions.get(0).getNumberOfDigits(), numPartitionsToSelect) : allBPartitions, 
+        			generateBRandom ? bSampler.sample(ThreadLocalRandom.current(), numPartitionsToSelect) : allBPartitions, 
         			numPartitionsToSelect, 
         			distanceB);
 
@@ -180,6 +185,12 @@ public class Experiment7 extends BaseExperiment {
     	}
 	}
 
+	// random partitions with the same sum and number of summands as the first given one
+	private PartitionSampler createSampler(List<Partition> allPartitions) {
+		return new PartitionSampler((int) allPartitions.get(0).getSumOfDigits(), (int) allPartitions.get(0).getNumberOfDigits(), 
+				uniformRandom ? PartitionSampler.Mode.UNIFORM : PartitionSampler.Mode.COMPOSITION);
+	}
+	
 	private Graph buildGraph(String graphName, List<Partition> allPartitions, int numPartitionsToSelect, int distance) {
 		List<Partition> partitions = new ArrayList<>(allPartitions);
 		
@@ -193,9 +204,11 @@ public class Experiment7 extends BaseExperiment {
 
 		Graph graph = new Graph(graphName, distance);
 		
+		List<INode> nodes = new ArrayList<>();
     	for(Partition partition : selectedPartitions) {
-    		graph.addNode(new PartitionNode(partition, null, orderSummonds));
+    		nodes.add(new PartitionNode(partition, null, orderSummonds));
     	}
+    	graph.addAll(nodes);
 
     	return graph;
 	}
@@ -275,6 +288,8 @@ public class Experiment7 extends BaseExperiment {
 			logStatsOfDegrees = readProperty(properties, "logStatsOfDegrees", false);
 			logHammingDistance = readProperty(properties, "logHammingDistance", false);
 			logEnergy = readProperty(properties, "logEnergy", false);
+			energyProbes = readProperty(properties, "energyProbes", 0);
+			energySteps = readProperty(properties, "energySteps", 50);
 			logCliques = readProperty(properties, "logCliques", false);
 			logDistributionOfCliques = readProperty(properties, "logDistributionOfCliques", false); 
 			logAverageEfficiency = readProperty(properties, "logAverageEfficiency", false);
@@ -285,6 +300,7 @@ public class Experiment7 extends BaseExperiment {
 			logConfidenceInterval = readProperty(properties, "logConfidenceInterval", false);
 			generateARandom = readProperty(properties, "generateARandom", false);
 			generateBRandom = readProperty(properties, "generateBRandom", false);
+			uniformRandom = readProperty(properties, "uniformRandom", false);
 
 			numPartitionsToSelect = readProperty(properties, "numPartitionsToSelect", 10);
 			numberOfRuns = readProperty(properties, "numberOfRuns", 1);
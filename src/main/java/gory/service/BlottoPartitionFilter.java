@@ -3,9 +3,13 @@ package gory.service;
 import java.util.HashMap;
 import java.util.Map;
 
+import gory.domain.IntPartition;
 import gory.domain.Partition;
 
-public class BlottoPartitionFilter implements IPartitionFilter {
+public class BlottoPartitionFilter implements IPrefixPartitionFilter {
+	// resource is the sum of this many largest summands
+	private static final int RESOURCE_SUMMANDS = 5;
+	
 	private int maxNumRepetitions;
 	private int minResource;
 	private int maxResource;
@@ -18,14 +22,60 @@ public class BlottoPartitionFilter implements IPartitionFilter {
 
 	@Override
 	public boolean filter(Partition partition) {
+		IntPartition intPartition = partition.getIntPartition();
+		if(intPartition != null) {
+			int[] summands = new int[intPartition.getNumberOfDigits()];
+			for(int i=0; i<summands.length; i++) {
+				summands[i] = intPartition.getAt(i + 1);
+			}
+			return accepts(summands);
+		}
+		
 		return checkResource(partition) && checkRepetitions(partition);
 	}
 	
+	@Override
+	public boolean acceptsPrefix(int[] summands, int len, int remainingSum) {
+		// the last summand repeated too often, the ones before it were checked with shorter prefixes
+		int last = summands[len - 1];
+		int repetitions = 1;
+		for(int i=len-2; i>=0 && summands[i] == last; i--) {
+			repetitions++;
+		}
+		if(repetitions > maxNumRepetitions) return false;
+		
+		int resource = 0;
+		for(int i=0; i<Math.min(len, RESOURCE_SUMMANDS); i++) {
+			resource += summands[i];
+		}
+		if(resource > maxResource) return false;
+		
+		// the summands still to come are at most the last one
+		if(len < RESOURCE_SUMMANDS) {
+			resource += Math.min(remainingSum, (RESOURCE_SUMMANDS - len) * last);
+		}
+		return resource >= minResource;
+	}
+	
+	@Override
+	public boolean accepts(int[] summands) {
+		int resource = 0;
+		int repetitions = 0;
+		for(int i=0; i<summands.length; i++) {
+			if(i < RESOURCE_SUMMANDS) resource += summands[i];
+			
+			repetitions = i > 0 && summands[i] == summands[i - 1] ? repetitions + 1 : 1;
+			if(repetitions > maxNumRepetitions) return false;
+		}
+		
+		return resource >= minResource && resource <= maxResource;
+	}
+	
 	private boolean checkResource(Partition partition) {
 		Partition normilized = partition.clone().normalize();
 		
 		int resource = 0;
-		for(int i=1; i<=5; i++) {
+		for(int i=1; i<=RESOURCE_SUMMANDS; i++) {
 			resource += normilized.getAt(i);
 		}
 		
@@ -1,9 +1,11 @@
 package gory.service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
 import gory.domain.Graph;
+import gory.domain.INode;
 import gory.domain.Partition;
 import gory.domain.PartitionNode;
 
@@ -13,12 +15,14 @@ public class GraphBuilder {
 	static public Graph build(String name, int numBuildingSteps, List<Partition> partitions) {
 		Graph graph = new Graph(name);
 	
+		List<INode> nodes = new ArrayList<>();
 		PartitionNode seedNode = createRandomNode(partitions);
-		graph.addNode(seedNode);
+		nodes.add(seedNode);
 		for(int step=1; step<=numBuildingSteps; step++) {
 			PartitionNode node = createRandomNode(partitions);
-			graph.addNode(node);
+			nodes.add(node);
 		}
+		graph.addAll(nodes);
 		
 		return graph;
 	}
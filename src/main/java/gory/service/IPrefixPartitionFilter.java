@@ -0,0 +1,13 @@
+package gory.service;
+
+/*
+ * Filter PartitionBuilder can apply while a partition is being made, to skip every partition
+ * starting with a rejected prefix. Summands are whole and in descending order.
+ */
+public interface IPrefixPartitionFilter extends IPartitionFilter {
+	// false if no partition starting with the first len summands, with remainingSum left for the rest, passes
+	boolean acceptsPrefix(int[] summands, int len, int remainingSum);
+	
+	// same answer as filter for the partition with these summands
+	boolean accepts(int[] summands);
+}
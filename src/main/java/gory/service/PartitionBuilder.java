@@ -1,14 +1,16 @@
 package gory.service;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import gory.domain.IntPartition;
+import gory.domain.LongPartitionList;
+import gory.domain.PackedPartition;
 import gory.domain.Partition;
 
 public class PartitionBuilder {
@@ -17,73 +19,157 @@ public class PartitionBuilder {
 	}
 
 	static public List<Partition> buildRandom(int n, int m, int num) {
-		List<Partition> partitions = new ArrayList<>();
-		int cnt1 = 0;
-		while(cnt1++ < num) {
-			List<Integer> tmp = new ArrayList<>();
-			for(int j=1; j<=m-1; j++) {
-				tmp.add(ThreadLocalRandom.current().nextInt(0, n));
-			}
-			
-			Collections.sort(tmp);
-			tmp.add(0, 0);
-			tmp.add(n);
-			
-			List<Double> summands = new ArrayList<>();
-			for(int j=1; j<=m; j++) {
-				int summand = tmp.get(j) - tmp.get(j-1);
-				summands.add(1.0 * summand);
-			}
-			Partition partition = new Partition(summands);
-			partitions.add(partition);
-		}
-		return partitions;
+		return new PartitionSampler(n, m, PartitionSampler.Mode.COMPOSITION).sample(ThreadLocalRandom.current(), num);
 	}
 	
 	static public List<Partition> build(int n, int m, IPartitionFilter filter) {
-		List<Partition> partitions = Collections.synchronizedList(new ArrayList<>());
-
-		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		if(filter instanceof IPrefixPartitionFilter) {
+			return buildPruned(n, m, (IPrefixPartitionFilter) filter);
+		}
 		
+		return stream(n, m, true)
+				.filter(partition -> filter == null || filter.filter(partition))
+				.collect(Collectors.toCollection(ArrayList::new));
+	}
+	
+	/*
+	 * Same partitions in the same order as the stream, but a prefix the filter rejects is not extended.
+	 * Partitions with different first summands are made in parallel.
+	 */
+	static private List<Partition> buildPruned(int n, int m, IPrefixPartitionFilter filter) {
 		int min = (int) Math.ceil(1.0*n/m);
-		for(int i=n; i>=min; i--) {
-			final int iFinal = i;
-			executor.submit(new Callable<Void>() {
-				public Void call() {
-					List<Double> summands = new ArrayList<>();
-					for(int j=1; j<=m; j++) {
-						summands.add(1.0 * (j == 1 ? iFinal : 0));
+		return IntStream.rangeClosed(min, n)
+				.parallel()
+				.mapToObj(i -> {
+					List<Partition> partitions = new ArrayList<>();
+					int[] summands = new int[m];
+					summands[0] = n + min - i;
+					if(filter.acceptsPrefix(summands, 1, i - min)) {
+						addNext(i - min, summands, 1, partitions, filter);
 					}
-					Partition partition = new Partition(summands);
-		
-					addNext(n, m, partitions, partition, iFinal, 1, filter);
-					return null;
+					return partitions;
+				})
+				.flatMap(List::stream)
+				.collect(Collectors.toCollection(ArrayList::new));
+	}
+	
+	static private void addNext(int remaining, int[] summands, int position, List<Partition> partitions, IPrefixPartitionFilter filter) {
+		if(remaining == 0) {
+			if(filter.accepts(summands)) {
+				partitions.add(PartitionSpliterator.toPartition(summands));
+			}
+		} else if(position < summands.length) {
+			int max = Math.min(summands[position - 1], remaining);
+			for(int i=1; i<=max; i++) {
+				summands[position] = i;
+				if(filter.acceptsPrefix(summands, position + 1, remaining - i)) {
+					addNext(remaining - i, summands, position + 1, partitions, filter);
 				}
-			});
+			}
+			summands[position] = 0;
 		}
+	}
+	
+	static public Stream<Partition> stream(int n, int m, boolean parallel) {
+		return StreamSupport.stream(new PartitionSpliterator(n, m), parallel);
+	}
+	
+	/*
+	 * Partitions with the same sum and number of summands as the head and no summand further from it
+	 * than the distance, the head included. The head has to have whole summands in descending order.
+	 */
+	static public List<Partition> ball(Partition head, int distance, IPartitionFilter filter) {
+		return ball(head, (int) Math.round(head.getSumOfDigits()), distance, filter);
+	}
+	
+	/*
+	 * Same as build(n, m, filter) with m the number of summands of the head, restricted to the partitions
+	 * within the distance from the head. Only those are made: every summand is kept within the distance from
+	 * the head's one and a prefix is dropped as soon as the summands left can no longer add up to n.
+	 */
+	static public List<Partition> ball(Partition head, int n, int distance, IPartitionFilter filter) {
+		IntPartition center = head.getIntPartition();
+		if(center == null) throw new IllegalArgumentException("Partition "+head+" has fractional or unordered summands");
 		
-		executor.shutdown();
-		try {
-			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
-		} catch (InterruptedException e) {
-			throw new RuntimeException(e);
+		int m = center.getNumberOfDigits();
+		int[] lower = new int[m], upper = new int[m];
+		for(int i=0; i<m; i++) {
+			lower[i] = Math.max(0, center.getAt(i + 1) - distance);
+			upper[i] = Math.max(0, center.getAt(i + 1) + distance);
+		}
+		
+		// smallest sum of the summands from position i on
+		int[] lowerRest = new int[m + 1];
+		for(int i=m-1; i>=0; i--) {
+			lowerRest[i] = lowerRest[i + 1] + lower[i];
+		}
+		
+		List<Partition> partitions = new ArrayList<>();
+		int[] summands = new int[m];
+		if(m > 0 && distance >= 0) {
+			IPrefixPartitionFilter prefixFilter = filter instanceof IPrefixPartitionFilter ? (IPrefixPartitionFilter) filter : null;
+			for(int first=Math.min(upper[0], n); first>=lower[0]; first--) {
+				summands[0] = first;
+				if(prefixFilter == null || prefixFilter.acceptsPrefix(summands, 1, n - first)) {
+					addNext(n - first, summands, 1, lower, upper, lowerRest, partitions, filter, prefixFilter);
+				}
+			}
 		}
-
 		return partitions;
 	}
 	
-	static private void addNext(int n, int m, List<Partition> partitions, Partition current, int sum, int position, IPartitionFilter filter) {
-		if(sum == n) {
-			if(filter == null || filter.filter(current)) {
-				partitions.add(current);
+	static private void addNext(int remaining, int[] summands, int position, int[] lower, int[] upper, int[] lowerRest,
+			List<Partition> partitions, IPartitionFilter filter, IPrefixPartitionFilter prefixFilter) {
+		int m = summands.length;
+		if(position == m) {
+			if(remaining == 0) {
+				if(prefixFilter != null) {
+					if(prefixFilter.accepts(summands)) {
+						partitions.add(PartitionSpliterator.toPartition(summands));
+					}
+				} else {
+					Partition partition = PartitionSpliterator.toPartition(summands);
+					if(filter == null || filter.filter(partition)) {
+						partitions.add(partition);
+					}
+				}
 			}
-		} else if(position<m) {
-			int max = (int) Math.min(current.getAt(position), n-sum);
-			for(int i=1; i<=max; i++) {
-				Partition partition = current.clone();
-				partition.setAt(position+1, i);
-				addNext(n, m, partitions, partition, sum+i, position+1, filter);
+			return;
+		}
+		
+		int max = Math.min(Math.min(upper[position], summands[position - 1]), remaining - lowerRest[position + 1]);
+		
+		// what the positions after this one can take at most
+		int upperRest = 0;
+		for(int i=position+1; i<m; i++) {
+			upperRest += Math.min(upper[i], max);
+		}
+		if(remaining > max + upperRest) return;
+		
+		for(int summand=lower[position]; summand<=max; summand++) {
+			summands[position] = summand;
+			if(prefixFilter == null || prefixFilter.acceptsPrefix(summands, position + 1, remaining - summand)) {
+				addNext(remaining - summand, summands, position + 1, lower, upper, lowerRest, partitions, filter, prefixFilter);
 			}
 		}
+		summands[position] = 0;
+	}
+	
+	/*
+	 * Same partitions as build(n, m) packed into longs, one by one. Only for m up to
+	 * PackedPartition.MAX_LENGTH and n up to PackedPartition.MAX_SUMMAND. To look up the family of
+	 * a single head ball is cheaper, it makes nothing outside the family.
+	 */
+	static public LongPartitionList buildPacked(int n, int m) {
+		if(m > PackedPartition.MAX_LENGTH || n > PackedPartition.MAX_SUMMAND) {
+			throw new IllegalArgumentException("Partitions of "+n+" into "+m+" summands can not be packed");
+		}
+		
+		PartitionSpliterator spliterator = new PartitionSpliterator(n, m);
+		LongPartitionList partitions = new LongPartitionList((int) spliterator.estimateSize());
+		while(spliterator.advance()) {
+			partitions.add(PackedPartition.encode(spliterator.getSummands()));
+		}
+		return partitions;
 	}
 }
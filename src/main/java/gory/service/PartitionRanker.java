@@ -0,0 +1,181 @@
+package gory.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import gory.domain.Partition;
+import lombok.Getter;
+
+/*
+ * Numbers the partitions of n into at most m summands (padded with zeros to m summands, like
+ * PartitionBuilder.build) from 0 to getCount()-1, in the same order as PartitionBuilder.buildPacked
+ * lists them: the first summand from n down, the following ones from 1 up. Ranks are computed from
+ * a table of p(s, k, max), the number of partitions of s into at most k summands none above max,
+ * so no partition has to be built to count, pick or number them.
+ */
+public class PartitionRanker {
+	@Getter private final int n;
+	@Getter private final int m;
+
+	// p(s, k, max) at k*rowSize + s*(s+1)/2 + max for max <= s, larger max are the same as max = s
+	private final long[] table;
+	private final int rowSize;
+
+	private final long count;
+
+	public PartitionRanker(int n, int m) {
+		if(n < 0 || m < 1) throw new IllegalArgumentException("No partitions of "+n+" into "+m+" summands");
+
+		this.n = n;
+		this.m = m;
+
+		rowSize = (n + 1) * (n + 2) / 2;
+		table = new long[(m + 1) * rowSize];
+		try {
+			for(int k=0; k<=m; k++) {
+				for(int s=0; s<=n; s++) {
+					for(int max=0; max<=s; max++) {
+						long p;
+						if(s == 0) {
+							p = 1;
+						} else if(k == 0 || max == 0) {
+							p = 0;
+						} else {
+							// the largest summand is either below max or max itself
+							p = Math.addExact(get(s, k, max - 1), get(s - max, k - 1, max));
+						}
+						table[k * rowSize + s * (s + 1) / 2 + max] = p;
+					}
+				}
+			}
+		} catch(ArithmeticException e) {
+			throw new IllegalArgumentException("Too many partitions of "+n+" into "+m+" summands to rank with longs");
+		}
+
+		count = get(n, m, n);
+	}
+
+	private long get(int s, int k, int max) {
+		if(max > s) max = s;
+		return table[k * rowSize + s * (s + 1) / 2 + max];
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long rank(int... summands) {
+		if(summands.length != m) throw new IllegalArgumentException("Partition "+Arrays.toString(summands)+" has no "+m+" summands");
+
+		long rank = 0;
+		int remaining = n;
+		for(int position=0; position<m; position++) {
+			int summand = summands[position];
+			if(remaining == 0) {
+				if(summand != 0) throw notAPartition(summands);
+				continue;
+			}
+
+			int max = position == 0 ? n : Math.min(summands[position - 1], remaining);
+			if(summand < 1 || summand > max) throw notAPartition(summands);
+
+			// partitions before this one differ first at this position
+			int k = m - position - 1;
+			if(position == 0) {
+				for(int v=n; v>summand; v--) {
+					rank += get(n - v, k, v);
+				}
+			} else {
+				for(int v=1; v<summand; v++) {
+					rank += get(remaining - v, k, v);
+				}
+			}
+			remaining -= summand;
+		}
+		if(remaining != 0) throw notAPartition(summands);
+
+		return rank;
+	}
+
+	private IllegalArgumentException notAPartition(int[] summands) {
+		return new IllegalArgumentException("Partition "+Arrays.toString(summands)+" is not a partition of "+n+" into "+m+" summands");
+	}
+
+	/*
+	 * Summands have to be whole numbers in descending order, the way PartitionBuilder makes them
+	 */
+	public long rank(Partition partition) {
+		int[] summands = new int[(int) partition.getNumberOfDigits()];
+		for(int i=0; i<summands.length; i++) {
+			double summand = partition.getAt(i + 1);
+			if(summand != Math.rint(summand)) throw new IllegalArgumentException("Partition "+partition+" has fractional summands");
+
+			summands[i] = (int) summand;
+		}
+		return rank(summands);
+	}
+
+	public int[] unrank(long rank) {
+		int[] summands = new int[m];
+		unrank(rank, summands, 0);
+		return summands;
+	}
+
+	/*
+	 * Writes the m summands of the partition with the given rank into the array from the offset on
+	 */
+	public void unrank(long rank, int[] summands, int offset) {
+		if(rank < 0 || rank >= count) throw new IndexOutOfBoundsException("Rank: "+rank+", Count: "+count);
+
+		Arrays.fill(summands, offset, offset + m, 0);
+		int remaining = n;
+		for(int position=0; position<m && remaining>0; position++) {
+			int k = m - position - 1;
+			int summand;
+			if(position == 0) {
+				summand = n;
+				while(rank >= get(n - summand, k, summand)) {
+					rank -= get(n - summand, k, summand);
+					summand--;
+				}
+			} else {
+				summand = 1;
+				while(rank >= get(remaining - summand, k, summand)) {
+					rank -= get(remaining - summand, k, summand);
+					summand++;
+				}
+			}
+			summands[offset + position] = summand;
+			remaining -= summand;
+		}
+	}
+
+	public Partition getPartition(long rank) {
+		int[] summands = unrank(rank);
+		List<Double> list = new ArrayList<>(m);
+		for(int summand : summands) {
+			list.add(1.0 * summand);
+		}
+		return new Partition(list);
+	}
+
+	/*
+	 * Uniformly random rank, Random.nextLong(bound) is not there in Java 8
+	 */
+	public long getRandomRank(Random random) {
+		if(count <= Integer.MAX_VALUE) return random.nextInt((int) count);
+
+		long bits, rank;
+		do {
+			bits = random.nextLong() >>> 1;
+			rank = bits % count;
+		} while(bits - rank + (count - 1) < 0);
+		return rank;
+	}
+
+	public Partition getRandomPartition(Random random) {
+		return getPartition(getRandomRank(random));
+	}
+}
@@ -0,0 +1,94 @@
+package gory.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import gory.domain.Partition;
+
+/*
+ * Random partitions of n into m summands, padded with zeros and in descending order. Samples are
+ * written m ints at a time into a caller's buffer, nothing is allocated per sample.
+ */
+public class PartitionSampler {
+	public enum Mode {
+		// m-1 cut points uniform in [0, n) split n, like PartitionBuilder.buildRandom always did.
+		// Partitions with many ways to be ordered come up more often.
+		COMPOSITION,
+
+		// every partition of n into at most m summands equally likely, picked by rank
+		UNIFORM
+	}
+
+	private final int n;
+	private final int m;
+	private final Mode mode;
+
+	private final PartitionRanker ranker;
+
+	public PartitionSampler(int n, int m, Mode mode) {
+		if(m < 1 || n < 0) {
+			throw new IllegalArgumentException("No random partitions of "+n+" into "+m+" summands");
+		}
+
+		this.n = n;
+		this.m = m;
+		this.mode = mode;
+		this.ranker = mode == Mode.UNIFORM ? new PartitionRanker(n, m) : null;
+	}
+
+	/*
+	 * Writes the m summands of one partition into the buffer from the offset on
+	 */
+	public void sample(Random random, int[] buffer, int offset) {
+		if(mode == Mode.UNIFORM) {
+			ranker.unrank(ranker.getRandomRank(random), buffer, offset);
+			return;
+		}
+
+		// no cut points to pick in [0, 0)
+		if(n == 0) {
+			Arrays.fill(buffer, offset, offset + m, 0);
+			return;
+		}
+
+		// sorted cut points, then in place the differences between them, from the last one down
+		int last = offset + m - 1;
+		for(int i=offset; i<last; i++) {
+			buffer[i] = random.nextInt(n);
+		}
+		Arrays.sort(buffer, offset, last);
+		buffer[last] = n - (m > 1 ? buffer[last - 1] : 0);
+		for(int i=last-1; i>offset; i--) {
+			buffer[i] -= buffer[i - 1];
+		}
+
+		// descending, like Partition sorts them
+		Arrays.sort(buffer, offset, last + 1);
+		for(int i=offset, j=last; i<j; i++, j--) {
+			int summand = buffer[i];
+			buffer[i] = buffer[j];
+			buffer[j] = summand;
+		}
+	}
+
+	/*
+	 * Fills the buffer with buffer.length/m partitions
+	 */
+	public void sample(Random random, int[] buffer) {
+		for(int offset=0; offset+m<=buffer.length; offset+=m) {
+			sample(random, buffer, offset);
+		}
+	}
+
+	public List<Partition> sample(Random random, int count) {
+		int[] buffer = new int[m];
+		List<Partition> partitions = new ArrayList<>(count);
+		for(int i=0; i<count; i++) {
+			sample(random, buffer, 0);
+			partitions.add(PartitionSpliterator.toPartition(buffer));
+		}
+		return partitions;
+	}
+}
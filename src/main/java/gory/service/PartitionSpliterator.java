@@ -0,0 +1,135 @@
+package gory.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import gory.domain.Partition;
+
+/*
+ * Partitions of n into at most m summands, padded with zeros to m summands, in the order of
+ * PartitionRanker. They are made one after another in a single int buffer: advance() moves it to
+ * the next partition and getSummands() shows it without copying, tryAdvance copies it into a
+ * Partition. trySplit halves the range of ranks left, so parallel streams split evenly.
+ */
+public class PartitionSpliterator implements Spliterator<Partition> {
+	private final int n;
+	private final int m;
+	private final PartitionRanker ranker;
+
+	private final int[] summands;
+
+	// ranks of the partition in the buffer and of the first one after the range
+	private long rank;
+	private long end;
+	private boolean started;
+
+	public PartitionSpliterator(int n, int m) {
+		this(new PartitionRanker(n, m));
+	}
+
+	public PartitionSpliterator(PartitionRanker ranker) {
+		this(ranker, 0, ranker.getCount());
+	}
+
+	private PartitionSpliterator(PartitionRanker ranker, long from, long to) {
+		this.ranker = ranker;
+		this.n = ranker.getN();
+		this.m = ranker.getM();
+		summands = from < to ? ranker.unrank(from) : new int[m];
+		rank = from;
+		end = to;
+	}
+
+	/*
+	 * Moves to the next partition, false when there are no more
+	 */
+	public boolean advance() {
+		if(!started) {
+			started = true;
+		} else if(rank < end) {
+			rank++;
+			if(rank < end) next();
+		}
+		return rank < end;
+	}
+
+	/*
+	 * Current partition, in descending order. The array is reused by advance(), copy it to keep it.
+	 */
+	public int[] getSummands() {
+		return summands;
+	}
+
+	private void next() {
+		// the last position which can grow by one, with the rest refilled as small as possible
+		int sum = n;
+		for(int position=m-1; position>=1; position--) {
+			sum -= summands[position];
+			int summand = summands[position] + 1;
+			int remaining = n - sum - summand;
+			if(summand <= summands[position - 1] && remaining >= 0 && remaining <= (m - position - 1) * summand) {
+				summands[position] = summand;
+				fill(position + 1, remaining);
+				return;
+			}
+		}
+
+		// otherwise the first summand goes down by one
+		summands[0]--;
+		fill(1, n - summands[0]);
+	}
+
+	// the most even split of the sum over the positions from the given one on
+	private void fill(int from, int sum) {
+		int k = m - from;
+		for(int position=from; position<m; position++) {
+			int summand = (sum + k - 1) / k;
+			summands[position] = summand;
+			sum -= summand;
+			k--;
+		}
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super Partition> action) {
+		if(!advance()) return false;
+
+		action.accept(toPartition(summands));
+		return true;
+	}
+
+	@Override
+	public Spliterator<Partition> trySplit() {
+		long from = started ? rank + 1 : rank;
+		long middle = from + (end - from) / 2;
+		if(middle - from < 2) return null;
+
+		PartitionSpliterator prefix = new PartitionSpliterator(ranker, from, middle);
+		if(middle < end) {
+			System.arraycopy(ranker.unrank(middle), 0, summands, 0, m);
+		}
+		rank = middle;
+		started = false;
+		return prefix;
+	}
+
+	@Override
+	public long estimateSize() {
+		return Math.max(0, started ? end - rank - 1 : end - rank);
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED | DISTINCT | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+	}
+
+	static Partition toPartition(int[] summands) {
+		List<Double> list = new ArrayList<>(summands.length);
+		for(int summand : summands) {
+			list.add(1.0 * summand);
+		}
+		return new Partition(list, null, false);
+	}
+}
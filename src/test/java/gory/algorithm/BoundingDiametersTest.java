@@ -0,0 +1,68 @@
+package gory.algorithm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import gory.domain.Graph;
+import gory.domain.TestGraphs;
+
+public class BoundingDiametersTest {
+	@Test
+	public void testSameAsLargestEccentricity() {
+		List<Graph> graphs = TestGraphs.all();
+		Random random = new Random(5);
+		for(int i=0; i<30; i++) {
+			graphs.add(randomConnected(random, 5 + random.nextInt(60), random.nextInt(10)));
+		}
+		
+		for(Graph graph : graphs) {
+			int diameter = TestGraphs.getDiameter(graph);
+			BoundingDiameters boundingDiameters = new BoundingDiameters(graph.getCompactGraph());
+			assertEquals(graph.getName(), diameter, boundingDiameters.getDiameter());
+			
+			if(diameter == Integer.MAX_VALUE) {
+				assertEquals(graph.getName(), Integer.MAX_VALUE, boundingDiameters.getDiameterAtLeast(1));
+				assertEquals(graph.getName(), Integer.MAX_VALUE, graph.getDiameterAtLeast(1));
+				continue;
+			}
+			
+			for(int threshold : new int[] {1, diameter - 1, diameter, diameter + 1, Integer.MAX_VALUE}) {
+				String name = graph.getName()+" at least "+threshold;
+				assertAtLeast(name, diameter, threshold, boundingDiameters.getDiameterAtLeast(threshold));
+				assertAtLeast(name, diameter, threshold, new Graph(graph).getDiameterAtLeast(threshold));
+			}
+			
+			// once the diameter is cached the graph answers with it
+			graph.getDiameter();
+			assertEquals(graph.getName(), diameter, graph.getDiameterAtLeast(1));
+		}
+	}
+	
+	// exact below the threshold, otherwise a lower bound reaching it
+	private static void assertAtLeast(String name, int diameter, int threshold, int atLeast) {
+		if(diameter < threshold) {
+			assertEquals(name, diameter, atLeast);
+		} else {
+			assertTrue(name+": "+atLeast, atLeast >= threshold && atLeast <= diameter);
+		}
+	}
+	
+	// a random tree with some more edges
+	private static Graph randomConnected(Random random, int size, int extraEdges) {
+		List<int[]> edges = new ArrayList<>();
+		for(int i=1; i<size; i++) {
+			edges.add(new int[] {random.nextInt(i), i});
+		}
+		for(int i=0; i<extraEdges; i++) {
+			int a = random.nextInt(size), b = random.nextInt(size);
+			if(a != b) edges.add(new int[] {a, b});
+		}
+		return TestGraphs.build("random "+size+" "+extraEdges, size, edges.toArray(new int[0][]));
+	}
+}
@@ -0,0 +1,116 @@
+package gory.algorithm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import gory.domain.CompactGraph;
+import gory.domain.Graph;
+import gory.domain.INode;
+import gory.domain.Partition;
+import gory.domain.PartitionNode;
+import gory.domain.TestGraphs;
+import gory.service.PartitionBuilder;
+
+public class BronKerbosch3Test {
+	@Test
+	public void testSameCliquesAsBronKerbosch2() {
+		Graph graph = new Graph("graph", 2);
+		for(Partition partition : PartitionBuilder.build(16, 5)) {
+			graph.addNode(new PartitionNode(partition));
+		}
+		
+		Set<Set<String>> expected = getMembers(new BronKerbosch2().findMaxCliques(graph, null));
+		Set<Set<String>> actual = getMembers(new BronKerbosch3().findMaxCliques(graph, null));
+		assertEquals(expected, actual);
+	}
+	
+	@Test
+	public void testParallelSameOrderAsSequential() {
+		Graph graph = new Graph("graph", 2);
+		for(Partition partition : PartitionBuilder.build(25, 6)) {
+			graph.addNode(new PartitionNode(partition));
+		}
+		
+		int[][] adjacency = new BronKerbosch3().getAdjacency(graph.getCompactGraph(), null);
+		List<int[]> expected = new BronKerbosch3(false).findCliques(adjacency);
+		List<int[]> actual = new BronKerbosch3(true).findCliques(adjacency);
+		assertEquals(expected.size(), actual.size());
+		for(int i=0; i<expected.size(); i++) {
+			assertArrayEquals("clique "+i, expected.get(i), actual.get(i));
+		}
+		
+		// clique names are given in this order, so they must not depend on the mode either
+		Graph parallelGraph = new Graph(graph);
+		parallelGraph.setParallelCliquesThreshold(1);
+		assertEquals(getNamedMembers(graph.getCliques()), getNamedMembers(parallelGraph.getCliques()));
+	}
+	
+	@Test
+	public void testVisitorSeesSameCliquesAsFindMaxCliques() {
+		// a triangle, a node hanging off it, an isolated node and a K4
+		Graph small = TestGraphs.build("small", 9, new int[] {0, 1}, new int[] {1, 2}, new int[] {0, 2}, new int[] {2, 3},
+				new int[] {5, 6}, new int[] {5, 7}, new int[] {5, 8}, new int[] {6, 7}, new int[] {6, 8}, new int[] {7, 8});
+		
+		for(Graph graph : new Graph[] {small, TestGraphs.disconnected(), TestGraphs.family(16, 5, 1)}) {
+			CompactGraph compactGraph = graph.getCompactGraph();
+			List<Set<String>> visited = new ArrayList<>();
+			new BronKerbosch3().forEachClique(compactGraph, null, (clique, size) -> {
+				Set<String> names = new TreeSet<>();
+				for(int i=0; i<size; i++) {
+					names.add(compactGraph.getNode(clique[i]).toString());
+				}
+				visited.add(names);
+			});
+			
+			List<Set<String>> found = new ArrayList<>();
+			for(Graph clique : new BronKerbosch3().findMaxCliques(graph, null)) {
+				Set<String> names = new TreeSet<>();
+				for(INode node : clique.getNodes()) {
+					names.add(node.toString());
+				}
+				found.add(names);
+			}
+			assertEquals(graph.getName(), found, visited);
+		}
+		
+		// hanging cliques of one and two nodes come after the large ones
+		List<Integer> sizes = new ArrayList<>();
+		new BronKerbosch3().forEachClique(small.getCompactGraph(), null, (clique, size) -> sizes.add(size));
+		assertEquals(4, sizes.size());
+		assertEquals(new HashSet<>(Arrays.asList(3, 4)), new HashSet<>(sizes.subList(0, 2)));
+		assertEquals(new HashSet<>(Arrays.asList(1, 2)), new HashSet<>(sizes.subList(2, 4)));
+	}
+	
+	private static List<String> getNamedMembers(Set<Graph> cliques) {
+		List<String> members = new ArrayList<>();
+		for(Graph clique : cliques) {
+			Set<String> names = new TreeSet<>();
+			for(INode node : clique.getNodes()) {
+				names.add(node.toString());
+			}
+			members.add(clique.getName()+" "+names);
+		}
+		return members;
+	}
+	
+	private static Set<Set<String>> getMembers(Set<Graph> cliques) {
+		Set<Set<String>> members = new HashSet<>();
+		for(Graph clique : cliques) {
+			Set<String> names = new TreeSet<>();
+			for(INode node : clique.getNodes()) {
+				names.add(node.toString());
+			}
+			members.add(names);
+		}
+		return members;
+	}
+}
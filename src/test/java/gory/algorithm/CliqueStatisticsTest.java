@@ -0,0 +1,55 @@
+package gory.algorithm;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import gory.domain.Graph;
+import gory.domain.Partition;
+import gory.domain.PartitionNode;
+import gory.domain.TestGraphs;
+import gory.service.PartitionBuilder;
+
+public class CliqueStatisticsTest {
+	@Test
+	public void testCountsMatchCliques() {
+		Graph graph = new Graph("graph", 1);
+		for(Partition partition : PartitionBuilder.build(18, 5)) {
+			graph.addNode(new PartitionNode(partition));
+		}
+		
+		int[] expected = new int[graph.getSize() + 1];
+		int maxCliqueSize = 0;
+		for(Graph clique : graph.getCliques()) {
+			expected[clique.getSize()]++;
+			maxCliqueSize = Math.max(maxCliqueSize, clique.getSize());
+		}
+		
+		CliqueStatistics statistics = graph.getCliqueStatistics();
+		int[] actual = statistics.getCountBySize();
+		for(int size=0; size<expected.length; size++) {
+			assertEquals(expected[size], size < actual.length ? actual[size] : 0);
+		}
+		assertEquals(maxCliqueSize, statistics.getMaxCliqueSize());
+	}
+	
+	@Test
+	public void testPairsWhichAreNotHanging() {
+		// every pair of the cycle is maximal, but none of them is hanging
+		Graph cycle = TestGraphs.cycle(4);
+		CliqueStatistics statistics = cycle.getCliqueStatistics();
+		assertEquals(0, cycle.getCliques().size());
+		assertEquals(0, statistics.getNumberOfCliques());
+		assertEquals(0, statistics.getMaxCliqueSize());
+		
+		Graph path = TestGraphs.path(4);
+		statistics = path.getCliqueStatistics();
+		assertEquals(2, path.getCliques().size());
+		assertEquals(2, statistics.getNumberOfCliques());
+		assertEquals(2, statistics.getMaxCliqueSize());
+		
+		statistics = TestGraphs.build("single", 1).getCliqueStatistics();
+		assertEquals(1, statistics.getCountBySize()[1]);
+		assertEquals(1, statistics.getMaxCliqueSize());
+	}
+}
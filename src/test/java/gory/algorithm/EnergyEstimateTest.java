@@ -0,0 +1,38 @@
+package gory.algorithm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import gory.domain.Graph;
+import gory.domain.TestGraphs;
+
+public class EnergyEstimateTest {
+	@Test
+	public void testWithinConfidenceInterval() {
+		for(Graph graph : new Graph[] {TestGraphs.complete(12), TestGraphs.star(15), TestGraphs.family(16, 4, 1), TestGraphs.family(20, 5, 2)}) {
+			double energy = Lanczos.getEnergy(graph.getCompactGraph());
+			EnergyEstimate estimate = graph.getEnergyEstimate(200, 30);
+			String name = graph.getName()+": "+energy+" not in ["+estimate.getLowerBound()+", "+estimate.getUpperBound()+"]";
+			assertTrue(name, estimate.getStandardError() > 0);
+			assertTrue(name, estimate.getLowerBound() <= energy && energy <= estimate.getUpperBound());
+		}
+	}
+
+	@Test
+	public void testSameEstimateEveryTime() {
+		Graph graph = TestGraphs.family(16, 4, 1);
+		assertEquals(graph.getEnergyEstimate(20, 10).getEnergy(), graph.getEnergyEstimate(20, 10).getEnergy(), 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoProbes() {
+		TestGraphs.complete(5).getEnergyEstimate(0, 10);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoSteps() {
+		TestGraphs.complete(5).getEnergyEstimate(10, 0);
+	}
+}
@@ -0,0 +1,60 @@
+package gory.algorithm;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import gory.domain.Graph;
+import gory.domain.INode;
+import gory.domain.SimpleNode;
+
+public class LanczosTest {
+	@Test
+	public void testCompleteGraph() {
+		List<INode> nodes = createNodes(6);
+		for(int i=0; i<nodes.size(); i++) {
+			for(int j=0; j<i; j++) {
+				nodes.get(i).connect(nodes.get(j));
+			}
+		}
+		Graph graph = createGraph(nodes);
+		
+		// eigenvalues 5 and -1 five times, Laplacian 0 and 6 five times
+		assertEquals(10, graph.getEnergy(), 1e-9);
+		assertEquals(6, graph.getCheegerConstant(), 1e-9);
+	}
+	
+	@Test
+	public void testStarAndIsolatedNode() {
+		List<INode> nodes = createNodes(7);
+		for(int i=1; i<6; i++) {
+			nodes.get(0).connect(nodes.get(i));
+		}
+		Graph graph = createGraph(nodes);
+		
+		assertEquals(2 * Math.sqrt(5), graph.getEnergy(), 1e-9);
+		assertEquals(0, graph.getCheegerConstant(), 1e-9);
+		
+		graph.removeNode(nodes.get(6));
+		assertEquals(1, graph.getCheegerConstant(), 1e-9);
+	}
+	
+	private static List<INode> createNodes(int count) {
+		List<INode> nodes = new ArrayList<>();
+		for(int i=0; i<count; i++) {
+			nodes.add(new SimpleNode("n"+i));
+		}
+		return nodes;
+	}
+	
+	private static Graph createGraph(List<INode> nodes) {
+		Graph graph = new Graph("graph", -1);
+		for(INode node : nodes) {
+			graph.addNode(node);
+		}
+		return graph;
+	}
+}
@@ -0,0 +1,49 @@
+package gory.algorithm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import gory.domain.CompactGraph;
+import gory.domain.Graph;
+import gory.domain.Partition;
+import gory.domain.PartitionNode;
+import gory.service.PartitionBuilder;
+
+public class MultiSourceBfsTest {
+	@Test
+	public void testSameDistancesAsSingleSourceSearch() {
+		Graph graph = new Graph("graph", 1);
+		for(Partition partition : PartitionBuilder.build(20, 5)) {
+			if(partition.getAt(1) > 9) continue;
+			
+			graph.addNode(new PartitionNode(partition));
+		}
+		CompactGraph compactGraph = graph.getCompactGraph();
+		int size = compactGraph.getSize();
+		
+		long[] histogram = new long[size];
+		int[] distances = new int[size];
+		int[] queue = new int[size];
+		MultiSourceBfs bfs = new MultiSourceBfs(compactGraph);
+		for(int source=0; source<size; source++) {
+			int reached = compactGraph.getShortestDistances(source, distances, queue);
+			assertEquals(reached - 1, bfs.getReachedCount(source));
+			
+			int eccentricity = compactGraph.getDegree(source) == 0 ? -1 : 0;
+			for(int distance : distances) {
+				if(distance > 0) {
+					histogram[distance]++;
+					eccentricity = Math.max(eccentricity, distance);
+				}
+			}
+			assertEquals(eccentricity, bfs.getEccentricity(source));
+		}
+		
+		long[] bfsHistogram = bfs.getDistanceHistogram();
+		assertArrayEquals(histogram, Arrays.copyOf(bfsHistogram, size));
+	}
+}
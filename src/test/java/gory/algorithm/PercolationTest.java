@@ -0,0 +1,77 @@
+package gory.algorithm;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import gory.domain.CompactGraph;
+import gory.domain.Graph;
+import gory.domain.Partition;
+import gory.domain.PartitionNode;
+import gory.service.PartitionBuilder;
+
+public class PercolationTest {
+	@Test
+	public void testSameComponentsAsSearchAfterEveryStep() {
+		Graph graph = new Graph("graph", 1);
+		for(Partition partition : PartitionBuilder.build(20, 5)) {
+			graph.addNode(new PartitionNode(partition));
+		}
+		CompactGraph compactGraph = graph.getCompactGraph();
+		List<int[]> cliques = new BronKerbosch3().findCliques(new BronKerbosch3().getAdjacency(compactGraph, null));
+
+		Random random = new Random(1);
+		check(compactGraph, Percolation.shuffleNodes(compactGraph, random));
+		check(compactGraph, Percolation.shuffleCliques(compactGraph, cliques, random));
+	}
+
+	private static void check(CompactGraph graph, int[][] steps) {
+		Percolation percolation = new Percolation(graph, steps);
+		assertEquals(steps.length, percolation.getNumberOfSteps());
+
+		int size = graph.getSize();
+		boolean[] removed = new boolean[size];
+		int connectivityLossStep = -1;
+		for(int k=0; k<=steps.length; k++) {
+			if(k > 0) {
+				for(int node : steps[k - 1]) {
+					removed[node] = true;
+				}
+			}
+
+			// plain breadth first search over the remaining nodes
+			boolean[] seen = new boolean[size];
+			int[] queue = new int[size];
+			int components = 0, largest = 0, nodes = 0;
+			for(int i=0; i<size; i++) {
+				if(removed[i] || seen[i]) continue;
+
+				int head = 0, tail = 0;
+				seen[i] = true;
+				queue[tail++] = i;
+				while(head < tail) {
+					int node = queue[head++];
+					for(int n=0; n<graph.getDegree(node); n++) {
+						int neighbor = graph.getNeighbor(node, n);
+						if(!removed[neighbor] && !seen[neighbor]) {
+							seen[neighbor] = true;
+							queue[tail++] = neighbor;
+						}
+					}
+				}
+				components++;
+				largest = Math.max(largest, tail);
+				nodes += tail;
+			}
+			if(components > 1 && connectivityLossStep < 0) connectivityLossStep = k;
+
+			assertEquals(components, percolation.getNumberOfComponents(k));
+			assertEquals(largest, percolation.getLargestComponentSize(k));
+			assertEquals(nodes, percolation.getNumberOfNodes(k));
+		}
+		assertEquals(connectivityLossStep, percolation.getConnectivityLossStep());
+	}
+}
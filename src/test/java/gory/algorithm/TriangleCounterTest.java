@@ -0,0 +1,107 @@
+package gory.algorithm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import gory.domain.CompactGraph;
+import gory.domain.Graph;
+import gory.domain.INode;
+import gory.domain.TestGraphs;
+
+public class TriangleCounterTest {
+	private static final double DELTA = 1e-12;
+
+	@Test
+	public void testSameAsBruteForce() {
+		List<Graph> graphs = TestGraphs.all();
+		graphs.add(TestGraphs.complete(40));
+		Random random = new Random(11);
+		graphs.add(random("dense", random, 80, 0.6));
+		graphs.add(random("sparse", random, 200, 0.02));
+
+		for(Graph graph : graphs) {
+			List<INode> nodes = new ArrayList<>(graph.getNodes());
+			int size = nodes.size();
+			boolean[][] matrix = new boolean[size][size];
+			for(int i=0; i<size; i++) {
+				for(int j=0; j<size; j++) {
+					matrix[i][j] = i != j && nodes.get(i).isConnectedTo(nodes.get(j));
+				}
+			}
+
+			CompactGraph compactGraph = graph.getCompactGraph();
+			TriangleCounter counter = graph.getTriangleCounter();
+
+			// every node against the pairs of its neighbours
+			long sumOfTriangles = 0, sumOfPairs = 0;
+			double sumOfLocal = 0;
+			for(int i=0; i<size; i++) {
+				String name = graph.getName()+" "+nodes.get(i);
+				long triangles = 0, pairs = 0;
+				for(int j=0; j<size; j++) {
+					if(!matrix[i][j]) continue;
+					for(int k=j+1; k<size; k++) {
+						if(!matrix[i][k]) continue;
+						pairs++;
+						if(matrix[j][k]) triangles++;
+					}
+				}
+				double local = pairs == 0 ? 0 : 1.0 * triangles / pairs;
+
+				int id = compactGraph.getId(nodes.get(i));
+				assertEquals(name, triangles, counter.getTriangles(id));
+				assertEquals(name, local, counter.getLocalClusteringCoefficient(id), DELTA);
+				assertEquals(name, local, nodes.get(i).getClusteringCoefficientUsingTriangles(), DELTA);
+
+				sumOfTriangles += triangles;
+				sumOfPairs += pairs;
+				sumOfLocal += local;
+			}
+			assertEquals(graph.getName(), sumOfTriangles / 3, counter.getNumberOfTriangles());
+
+			double transitivity = sumOfPairs == 0 ? 0 : 1.0 * sumOfTriangles / sumOfPairs;
+			assertEquals(graph.getName(), getTransitivityUsingMatrix(matrix), transitivity, DELTA);
+			assertEquals(graph.getName(), transitivity, counter.getTransitivity(), DELTA);
+			assertEquals(graph.getName(), transitivity, graph.getClusteringCoefficientUsingMatrix(), DELTA);
+
+			if(size == 0) {
+				assertTrue(Double.isNaN(graph.getClusteringCoefficientUsingTriangles()));
+			} else {
+				assertEquals(graph.getName(), sumOfLocal / size, graph.getClusteringCoefficientUsingTriangles(), DELTA);
+			}
+		}
+	}
+
+	// the formula Graph used before, over every triple i < j < k of the adjacency matrix
+	private static double getTransitivityUsingMatrix(boolean[][] matrix) {
+		int size = matrix.length;
+		long triangles = 0, triples = 0;
+		for(int i=0; i<size; i++) {
+			for(int j=i+1; j<size; j++) {
+				for(int k=j+1; k<size; k++) {
+					if(matrix[i][j] && matrix[j][k] && matrix[i][k]) triangles++;
+					triples += (matrix[i][j] ? 1 : 0)*(matrix[i][k] ? 1 : 0) +
+							(matrix[j][i] ? 1 : 0)*(matrix[j][k] ? 1 : 0) +
+							(matrix[k][i] ? 1 : 0)*(matrix[k][j] ? 1 : 0);
+				}
+			}
+		}
+		return triples > 0 ? 3.0 * triangles / triples : 0;
+	}
+
+	private static Graph random(String name, Random random, int size, double p) {
+		List<int[]> edges = new ArrayList<>();
+		for(int i=0; i<size; i++) {
+			for(int j=i+1; j<size; j++) {
+				if(random.nextDouble() < p) edges.add(new int[] {i, j});
+			}
+		}
+		return TestGraphs.build(name, size, edges.toArray(new int[0][]));
+	}
+}
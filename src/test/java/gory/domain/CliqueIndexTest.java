@@ -0,0 +1,105 @@
+package gory.domain;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import gory.service.PartitionBuilder;
+
+public class CliqueIndexTest {
+	@Test
+	public void testSameGraphOfCliquesAsAddNode() {
+		for(boolean prohibitOddness : new boolean[] {false, true}) {
+			Graph graph = new Graph("graph", 1);
+			if(prohibitOddness) {
+				// nodes within the connection distance are left unconnected, distanceTo still finds them
+				graph.getProhibitedOddness().add(2);
+			}
+			for(Partition partition : PartitionBuilder.build(20, 5)) {
+				graph.addNode(new PartitionNode(partition));
+			}
+			Set<Graph> cliques = graph.getCliques();
+
+			Graph expected = new Graph("expected", 1);
+			for(Graph clique : cliques) {
+				expected.addNode(clique);
+			}
+			List<String> expectedConnections = getConnections(expected);
+			for(Graph clique : cliques) {
+				clique.getConnectedNodes().clear();
+			}
+
+			Graph actual = new CliqueIndex(cliques).buildGraphOfCliques("actual", 1);
+			assertEquals(expectedConnections, getConnections(actual));
+		}
+	}
+
+	@Test
+	public void testOneWayConnection() {
+		Graph first = clique("first", new SimpleNode("x1"), new SimpleNode("x2"));
+		Graph second = clique("second", new SimpleNode("y1"), new SimpleNode("y2"));
+		
+		// x1 knows y1 but not the other way round, like nodes merged in Experiment5
+		first.getNode(0).getConnectedNodes().add(second.getNode(0));
+		
+		for(List<Graph> cliques : Arrays.asList(Arrays.asList(first, second), Arrays.asList(second, first))) {
+			Graph expected = new Graph("expected", 1);
+			for(Graph clique : cliques) {
+				expected.addNode(clique);
+			}
+			List<String> expectedConnections = getConnections(expected);
+			for(Graph clique : cliques) {
+				clique.getConnectedNodes().clear();
+			}
+			
+			Graph actual = new CliqueIndex(cliques).buildGraphOfCliques("actual", 1);
+			assertEquals(cliques.toString(), expectedConnections, getConnections(actual));
+		}
+	}
+	
+	@Test
+	public void testCliquesOfNode() {
+		Graph graph = new Graph("graph", 2);
+		for(Partition partition : PartitionBuilder.build(16, 5)) {
+			graph.addNode(new PartitionNode(partition));
+		}
+		Set<Graph> cliques = graph.getCliques();
+
+		CliqueIndex cliqueIndex = new CliqueIndex(cliques);
+		for(INode node : graph.getNodes()) {
+			List<Graph> expected = new ArrayList<>();
+			for(Graph clique : cliques) {
+				if(clique.getNodes().contains(node)) expected.add(clique);
+			}
+			assertEquals(expected, cliqueIndex.getCliques(node));
+			assertEquals(expected.size(), cliqueIndex.getNumberOfCliques(node));
+		}
+	}
+
+	private static Graph clique(String name, INode... nodes) {
+		Graph clique = new Graph(name, -1);
+		for(INode node : nodes) {
+			for(INode member : clique.getNodes()) {
+				member.connect(node);
+			}
+			clique.addNode(node);
+		}
+		return clique;
+	}
+	
+	private static List<String> getConnections(Graph graphOfCliques) {
+		List<String> connections = new ArrayList<>();
+		for(INode node : graphOfCliques.getNodes()) {
+			for(INode connectedNode : node.getConnectedNodes()) {
+				connections.add(node+" - "+connectedNode);
+			}
+		}
+		connections.sort(null);
+		return connections;
+	}
+}
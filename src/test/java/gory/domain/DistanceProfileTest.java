@@ -0,0 +1,58 @@
+package gory.domain;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class DistanceProfileTest {
+	@Test
+	public void testSameAsAllPairsSearch() {
+		for(Graph graph : TestGraphs.all()) {
+			int size = graph.getSize();
+			int connectedSize = 0;
+			int radius = Integer.MAX_VALUE;
+			long sumOfDistances = 0;
+			double sumOfEfficiencies = 0;
+			for(INode start : graph.getNodes()) {
+				if(!start.getConnectedNodes().isEmpty()) connectedSize++;
+				
+				int eccentricity = 0;
+				for(int distance : TestGraphs.getDistances(graph, start).values()) {
+					if(distance < 0) {
+						eccentricity = Integer.MAX_VALUE;
+					} else if(distance > 0) {
+						eccentricity = Math.max(eccentricity, distance);
+						sumOfDistances += distance;
+						sumOfEfficiencies += 1.0 / distance;
+					}
+				}
+				radius = Math.min(radius, eccentricity);
+			}
+			int diameter = TestGraphs.getDiameter(graph);
+			
+			// unreachable pairs count as zero distance, isolated nodes are left out of the pairs
+			double characteristicPathLength = connectedSize <= 1 ? 0 : 1.0 * sumOfDistances / (connectedSize * (connectedSize - 1));
+			double averageEfficiency = size <= 1 ? 0 : sumOfEfficiencies / (size * (size - 1));
+			
+			DistanceProfile distanceProfile = graph.getDistanceProfile();
+			assertEquals(graph.getName(), diameter, distanceProfile.getDiameter());
+			assertEquals(graph.getName(), diameter == Integer.MAX_VALUE ? Integer.MAX_VALUE : radius, distanceProfile.getRadius());
+			assertEquals(graph.getName(), characteristicPathLength, distanceProfile.getCharacteristicPathLength(), 1e-12);
+			assertEquals(graph.getName(), averageEfficiency, distanceProfile.getAverageEfficiency(), 1e-12);
+			assertEquals(graph.getName(), diameter, graph.getDiameter());
+			assertEquals(graph.getName(), characteristicPathLength, graph.getCharacteristicPathLength(), 1e-12);
+			assertEquals(graph.getName(), averageEfficiency, graph.getAverageEfficiency(), 1e-12);
+		}
+	}
+	
+	@Test
+	public void testDisconnected() {
+		// pairs 0-1, 1-2 at 1 and 0-2 at 2 in both directions, then the path of 4 and the triangle, the isolated node is left out
+		Graph graph = TestGraphs.disconnected();
+		DistanceProfile distanceProfile = graph.getDistanceProfile();
+		
+		long sumOfDistances = 2 * (1 + 1 + 2) + 2 * (3 * 1 + 2 * 2 + 3) + 2 * 3;
+		assertEquals(1.0 * sumOfDistances / (10 * 9), distanceProfile.getCharacteristicPathLength(), 1e-12);
+		assertEquals(Integer.MAX_VALUE, distanceProfile.getDiameter());
+	}
+}
@@ -0,0 +1,78 @@
+package gory.domain;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import gory.algorithm.BronKerbosch3;
+import gory.service.PartitionBuilder;
+
+public class DynamicCliqueIndexTest {
+	@Test
+	public void testSameCliquesAsRecomputedAfterRemovals() {
+		Graph graph = new Graph("graph", 2);
+		for(Partition partition : PartitionBuilder.build(16, 5)) {
+			graph.addNode(new PartitionNode(partition));
+		}
+		graph.setCliqueIndex(new DynamicCliqueIndex(graph));
+		graph.getCliqueIndex().getGraphOfCliques();
+
+		Random random = new Random(1);
+		while(graph.getSize() > 0) {
+			if(random.nextInt(4) == 0) {
+				// whole clique at once, through the cloned nodes it holds
+				List<Graph> cliques = new ArrayList<>(graph.getCliques());
+				for(INode node : cliques.get(random.nextInt(cliques.size())).getNodes()) {
+					graph.removeNode(node);
+				}
+			} else {
+				graph.removeNode(graph.getNode(random.nextInt(graph.getSize())));
+			}
+
+			Set<Graph> expected = new BronKerbosch3().findMaxCliques(graph, null);
+			assertEquals(getMembers(expected), getMembers(graph.getCliques()));
+
+			Graph expectedGraphOfCliques = new Graph("expected", 1);
+			for(Graph clique : expected) {
+				expectedGraphOfCliques.addNode(clique);
+			}
+			assertEquals(getConnections(expectedGraphOfCliques), getConnections(graph.getCliqueIndex().getGraphOfCliques()));
+		}
+	}
+
+	private static List<String> getMembers(Set<Graph> cliques) {
+		List<String> members = new ArrayList<>();
+		for(Graph clique : cliques) {
+			members.add(getMembers(clique));
+		}
+		Collections.sort(members);
+		return members;
+	}
+
+	private static String getMembers(Graph clique) {
+		Set<String> names = new TreeSet<>();
+		for(INode node : clique.getNodes()) {
+			names.add(node.toString());
+		}
+		return names.toString();
+	}
+
+	// hanging cliques can have the same members, so connections are kept as a sorted list
+	private static List<String> getConnections(Graph graphOfCliques) {
+		List<String> connections = new ArrayList<>();
+		for(INode node : graphOfCliques.getNodes()) {
+			for(INode connectedNode : node.getConnectedNodes()) {
+				connections.add(getMembers((Graph) node)+" - "+getMembers((Graph) connectedNode));
+			}
+		}
+		Collections.sort(connections);
+		return connections;
+	}
+}
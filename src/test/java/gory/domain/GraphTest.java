@@ -0,0 +1,182 @@
+package gory.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import gory.service.PartitionBuilder;
+
+public class GraphTest {
+	@Test
+	public void testNeighborIndexBuildsSameEdges() {
+		List<Partition> partitions = PartitionBuilder.build(16, 4);
+		partitions.addAll(PartitionBuilder.build(15, 4));
+		
+		for(double connectionDistance : new double[] {0, 1, 1.5, 2}) {
+			Graph indexed = new Graph("indexed", connectionDistance);
+			Graph bruteForce = new Graph("brute force", connectionDistance);
+			bruteForce.setNeighborIndex(null);
+			
+			indexed.getProhibitedOddness().add(2);
+			bruteForce.getProhibitedOddness().add(2);
+			
+			for(Partition partition : partitions) {
+				indexed.addNode(new PartitionNode(partition));
+				bruteForce.addNode(new PartitionNode(partition));
+			}
+			indexed.removeNode(new PartitionNode(partitions.get(0)));
+			bruteForce.removeNode(new PartitionNode(partitions.get(0)));
+			indexed.addNode(new PartitionNode(partitions.get(0)));
+			bruteForce.addNode(new PartitionNode(partitions.get(0)));
+			
+			assertEquals(getEdges(bruteForce), getEdges(indexed));
+		}
+	}
+	
+	@Test
+	public void testNeighborIndexWithNoisySummands() {
+		List<Partition> partitions = PartitionBuilder.build(20, 5);
+		
+		Graph indexed = new Graph("indexed", 0.7);
+		Graph bruteForce = new Graph("brute force", 0.7);
+		bruteForce.setNeighborIndex(null);
+		
+		for(Partition partition : partitions) {
+			Partition noisy = partition.clone();
+			noisy.applyNormalDistribution(0.3, 2);
+			
+			indexed.addNode(new PartitionNode(noisy));
+			bruteForce.addNode(new PartitionNode(noisy));
+		}
+		
+		assertEquals(getEdges(bruteForce), getEdges(indexed));
+	}
+	
+	@Test
+	public void testAddAllBuildsSameGraphAsAddNode() {
+		List<Partition> partitions = PartitionBuilder.build(25, 5);
+		
+		Graph incremental = new Graph("incremental", 1);
+		Graph bulk = new Graph("bulk", 1);
+		incremental.getProhibitedOddness().add(3);
+		bulk.getProhibitedOddness().add(3);
+		
+		List<INode> nodes = new ArrayList<>();
+		for(int i=0; i<partitions.size(); i++) {
+			Partition partition = partitions.get(i);
+			if(i < 10) {
+				incremental.addNode(new PartitionNode(partition));
+				bulk.addNode(new PartitionNode(partition));
+			}
+			
+			nodes.add(new PartitionNode(partition));
+			incremental.addNode(new PartitionNode(partition));
+		}
+		bulk.addAll(nodes);
+		
+		assertEquals(incremental.getSize(), bulk.getSize());
+		assertEquals(getEdges(incremental), getEdges(bulk));
+	}
+	
+	@Test
+	public void testNeighborGeneratorBuildsSameEdges() {
+		List<Partition> partitions = PartitionBuilder.build(20, 5);
+		partitions.addAll(PartitionBuilder.build(19, 5));
+		partitions.addAll(PartitionBuilder.build(22, 5));
+		for(int i=0; i<partitions.size(); i+=7) {
+			// noisy and unordered partitions are left to the grids
+			Partition noisy = partitions.get(i).clone();
+			noisy.applyNormalDistribution(0.3, 1);
+			partitions.add(noisy);
+			partitions.add(new Partition("[1, 2, 3, 4, "+i+"]", null, false));
+		}
+		
+		for(double connectionDistance : new double[] {0, 1, 1.5, 2, 4}) {
+			Graph generated = new Graph("generated", connectionDistance);
+			generated.setNeighborIndex(new NeighborGenerator(connectionDistance));
+			Graph bruteForce = new Graph("brute force", connectionDistance);
+			bruteForce.setNeighborIndex(null);
+			
+			List<INode> nodes = new ArrayList<>();
+			for(int i=0; i<partitions.size(); i++) {
+				if(i%2 == 0) {
+					generated.addNode(new PartitionNode(partitions.get(i)));
+				} else {
+					nodes.add(new PartitionNode(partitions.get(i)));
+				}
+				bruteForce.addNode(new PartitionNode(partitions.get(i)));
+			}
+			generated.addAll(nodes);
+			
+			generated.removeNode(new PartitionNode(partitions.get(0)));
+			bruteForce.removeNode(new PartitionNode(partitions.get(0)));
+			generated.addNode(new PartitionNode(partitions.get(0)));
+			bruteForce.addNode(new PartitionNode(partitions.get(0)));
+			
+			assertEquals(getEdges(bruteForce), getEdges(generated));
+		}
+	}
+	
+	@Test
+	public void testMetricsCacheInvalidatedByChanges() {
+		Graph graph = TestGraphs.path(5);
+		List<INode> nodes = new ArrayList<>(graph.getNodes());
+		
+		CompactGraph compactGraph = graph.getCompactGraph();
+		assertSame(compactGraph, graph.getCompactGraph());
+		assertEquals(1, graph.getMetricsCache().getHits("compact graph"));
+		
+		graph.addNode(new SimpleNode("added"));
+		assertNotSame(compactGraph, compactGraph = graph.getCompactGraph());
+		
+		graph.addAll(Arrays.asList(new SimpleNode("added 1"), new SimpleNode("added 2")));
+		assertNotSame(compactGraph, compactGraph = graph.getCompactGraph());
+		
+		graph.connect(nodes.get(0), nodes.get(4));
+		assertNotSame(compactGraph, compactGraph = graph.getCompactGraph());
+		
+		graph.removeNode(nodes.get(2));
+		assertNotSame(compactGraph, compactGraph = graph.getCompactGraph());
+		
+		// nothing changed, nothing recomputed
+		long version = graph.getVersion();
+		graph.removeNode(nodes.get(2));
+		assertEquals(version, graph.getVersion());
+		assertSame(compactGraph, graph.getCompactGraph());
+		
+		assertFalse(graph.addNode(nodes.get(0)));
+		assertFalse(graph.addAll(Arrays.asList(nodes.get(0))));
+		assertSame(compactGraph, graph.getCompactGraph());
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testCachedCliquesAreReadOnly() {
+		Graph graph = TestGraphs.complete(4);
+		graph.getCliques().clear();
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testCachedDegreeCountIsReadOnly() {
+		Graph graph = TestGraphs.star(4);
+		graph.getNodeDegreeCount().clear();
+	}
+	
+	static Set<String> getEdges(Graph graph) {
+		Set<String> edges = new TreeSet<>();
+		for(INode node : graph.getNodes()) {
+			for(INode connectedNode : node.getConnectedNodes()) {
+				edges.add(node+" - "+connectedNode);
+			}
+		}
+		return edges;
+	}
+}
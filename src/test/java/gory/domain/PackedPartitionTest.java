@@ -0,0 +1,75 @@
+package gory.domain;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import gory.service.PartitionBuilder;
+
+public class PackedPartitionTest {
+	@Test
+	public void testSameAsPartition() {
+		List<Partition> partitions = PartitionBuilder.build(20, 5);
+		partitions.add(new Partition("[63, 62, 1, 0, 63]", null, false));
+		partitions.add(new Partition("[0, 63, 0, 63, 0]", null, false));
+
+		for(Partition partition : partitions) {
+			long code = partition.getPacked();
+			assertEquals(partition, PackedPartition.decode(code));
+			assertEquals(partition.getSumOfDigits(), PackedPartition.getSumOfDigits(code), 0);
+			assertEquals(partition.getOddness(), PackedPartition.getOddness(code));
+			assertEquals(partition.getEvenness(), PackedPartition.getEvenness(code));
+
+			for(Partition other : partitions) {
+				int distance = (int) partition.distanceTo(other);
+				assertEquals(distance, PackedPartition.distance(code, other.getPacked()));
+				for(int threshold=0; threshold<=3; threshold++) {
+					assertEquals(distance <= threshold, PackedPartition.isWithin(code, other.getPacked(), threshold));
+				}
+			}
+		}
+
+		long ten = PackedPartition.encode(new int[] {63, 63, 63, 63, 63, 63, 63, 63, 63, 63});
+		assertEquals(630, PackedPartition.getSumOfDigits(ten));
+		assertEquals(63, PackedPartition.distance(ten, PackedPartition.encode(new int[10])));
+		assertEquals(-1, PackedPartition.distance(ten, PackedPartition.encode(1, 2)));
+		assertEquals(PackedPartition.NONE, new Partition("[64, 1]").getPacked());
+		assertEquals(PackedPartition.NONE, new Partition("[1.5, 1]").getPacked());
+	}
+
+	@Test
+	public void testPackedFollowsChanges() {
+		// all zeros has the sign bit set, it must not be taken for an unknown code
+		Partition partition = new Partition("[0, 0, 0, 0, 0, 0, 0, 0]");
+		assertEquals(PackedPartition.encode(new int[8]), partition.getPacked());
+
+		partition.setAt(1, 5);
+		assertEquals(PackedPartition.encode(5, 0, 0, 0, 0, 0, 0, 0), partition.getPacked());
+
+		partition.setAt(1, 64);
+		assertEquals(PackedPartition.NONE, partition.getPacked());
+	}
+
+	@Test
+	public void testBuildPacked() {
+		LongPartitionList packed = PartitionBuilder.buildPacked(25, 5);
+		List<Partition> partitions = PartitionBuilder.build(25, 5);
+
+		assertEquals(partitions.size(), packed.size());
+		assertEquals(new HashSet<>(partitions), new HashSet<>(packed.toPartitions()));
+	}
+
+	@Test
+	public void testWithinSameAsBall() {
+		LongPartitionList packed = PartitionBuilder.buildPacked(25, 5);
+		for(Partition head : new Partition[] {new Partition("[5, 5, 5, 5, 5]"), new Partition("[12, 6, 4, 2, 1]"), new Partition("[25, 0, 0, 0, 0]")}) {
+			for(int distance=0; distance<=3; distance++) {
+				LongPartitionList within = packed.getWithin(head.getPacked(), distance);
+				assertEquals(head+" "+distance, PartitionBuilder.ball(head, distance, null), within.toPartitions());
+			}
+		}
+	}
+}
@@ -1,9 +1,14 @@
 package gory.domain;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
 
 import org.junit.Test;
 
+import gory.service.PartitionBuilder;
+
 public class PartitionTest {
 	@Test
 	public void testRank() {
@@ -17,6 +22,50 @@ public class PartitionTest {
 		assertEquals(1, partition.getRank());
 	}
 
+	@Test
+	public void testIntPartitionMatchesPartition() {
+		List<Partition> partitions = PartitionBuilder.build(20, 5);
+		partitions.add(new Partition("[300, 200, 1, 0]"));
+		partitions.add(new Partition("[70000, 5, 3, 0]"));
+		
+		for(Partition partition : partitions) {
+			IntPartition intPartition = partition.getIntPartition();
+			assertEquals(partition.getOddness(), intPartition.getOddness());
+			assertEquals(partition.getEvenness(), intPartition.getEvenness());
+			assertEquals(partition.getRank(), intPartition.getRank());
+			assertEquals(partition.getSumOfDigits(), intPartition.getSumOfDigits(), 0);
+			assertEquals(partition, intPartition.toPartition());
+			assertEquals(intPartition, IntPartition.valueOf(intPartition.toPartition()));
+			assertEquals(intPartition.hashCode(), IntPartition.valueOf(intPartition.toPartition()).hashCode());
+			
+			for(Partition other : partitions) {
+				assertEquals(partition.distanceTo(other), intPartition.distanceTo(other.getIntPartition()), 0);
+			}
+		}
+		
+		assertNull(new Partition("[1.5, 1]").getIntPartition());
+		assertNull(new Partition("[1, 5, 3]", null, false).getIntPartition());
+	}
+	
+	@Test
+	public void testCachedPropertiesFollowChanges() {
+		Partition partition = new Partition("[5, 3, 1]");
+		assertEquals(3, partition.getOddness());
+		assertEquals(2, partition.getRank());
+		assertEquals(new IntPartition(5, 3, 1), partition.getIntPartition());
+		
+		// no longer in order, the rank is taken from the sorted summands
+		partition.setAt(3, 4);
+		assertEquals(2, partition.getOddness());
+		assertEquals(1, partition.getEvenness());
+		assertEquals(3, partition.getRank());
+		assertNull(partition.getIntPartition());
+		assertNull(partition.getIntPartition());
+		
+		partition.normalize();
+		assertEquals(new IntPartition(5, 4, 3), partition.getIntPartition());
+	}
+
 	@Test
 	public void testSort() {
 		Partition partition = new Partition("[1, 5, 3]");
@@ -0,0 +1,139 @@
+package gory.domain;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import gory.service.PartitionBuilder;
+
+/*
+ * Small graphs shared by the tests of graph metrics
+ */
+public class TestGraphs {
+	// nodes 0 to size-1, connected by the given pairs only
+	public static Graph build(String name, int size, int[]... edges) {
+		Graph graph = new Graph(name, -1);
+		List<INode> nodes = new ArrayList<>();
+		for(int i=0; i<size; i++) {
+			INode node = new SimpleNode(name+"-"+i);
+			nodes.add(node);
+			graph.addNode(node);
+		}
+		for(int[] edge : edges) {
+			graph.connect(nodes.get(edge[0]), nodes.get(edge[1]));
+		}
+		return graph;
+	}
+	
+	public static Graph path(int size) {
+		int[][] edges = new int[Math.max(size - 1, 0)][];
+		for(int i=0; i+1<size; i++) {
+			edges[i] = new int[] {i, i + 1};
+		}
+		return build("path", size, edges);
+	}
+	
+	public static Graph cycle(int size) {
+		int[][] edges = new int[size][];
+		for(int i=0; i<size; i++) {
+			edges[i] = new int[] {i, (i + 1) % size};
+		}
+		return build("cycle", size, edges);
+	}
+	
+	// node 0 in the middle
+	public static Graph star(int size) {
+		int[][] edges = new int[size - 1][];
+		for(int i=1; i<size; i++) {
+			edges[i - 1] = new int[] {0, i};
+		}
+		return build("star", size, edges);
+	}
+	
+	public static Graph complete(int size) {
+		List<int[]> edges = new ArrayList<>();
+		for(int i=0; i<size; i++) {
+			for(int j=i+1; j<size; j++) {
+				edges.add(new int[] {i, j});
+			}
+		}
+		return build("complete", size, edges.toArray(new int[0][]));
+	}
+	
+	// two paths, a triangle and an isolated node
+	public static Graph disconnected() {
+		return build("disconnected", 11, new int[] {0, 1}, new int[] {1, 2}, new int[] {3, 4}, new int[] {4, 5}, new int[] {5, 6},
+				new int[] {7, 8}, new int[] {8, 9}, new int[] {9, 7});
+	}
+	
+	// two paths without isolated nodes
+	public static Graph twoPaths() {
+		return build("two paths", 5, new int[] {0, 1}, new int[] {1, 2}, new int[] {3, 4});
+	}
+	
+	public static Graph family(int n, int m, int connectionDistance) {
+		Graph graph = new Graph("family", connectionDistance);
+		for(Partition partition : PartitionBuilder.build(n, m)) {
+			graph.addNode(new PartitionNode(partition));
+		}
+		return graph;
+	}
+	
+	public static List<Graph> all() {
+		List<Graph> graphs = new ArrayList<>();
+		graphs.add(build("empty", 0));
+		graphs.add(build("single", 1));
+		graphs.add(path(2));
+		graphs.add(path(7));
+		graphs.add(cycle(4));
+		graphs.add(cycle(9));
+		graphs.add(star(6));
+		graphs.add(complete(5));
+		graphs.add(disconnected());
+		graphs.add(twoPaths());
+		graphs.add(family(16, 4, 1));
+		graphs.add(family(20, 5, 2));
+		return graphs;
+	}
+	
+	/*
+	 * Shortest distances by plain breadth first search, -1 for nodes which can not be reached
+	 */
+	public static Map<INode, Integer> getDistances(Graph graph, INode start) {
+		Map<INode, Integer> distances = new HashMap<>();
+		for(INode node : graph.getNodes()) {
+			distances.put(node, -1);
+		}
+		List<INode> queue = new ArrayList<>();
+		queue.add(start);
+		distances.put(start, 0);
+		for(int i=0; i<queue.size(); i++) {
+			INode node = queue.get(i);
+			for(INode connectedNode : node.getConnectedNodes()) {
+				if(distances.get(connectedNode) < 0) {
+					distances.put(connectedNode, distances.get(node) + 1);
+					queue.add(connectedNode);
+				}
+			}
+		}
+		return distances;
+	}
+	
+	// Integer.MAX_VALUE if some node can not be reached or has no connections, like Graph.getDiameter
+	public static int getDiameter(Graph graph) {
+		if(graph.getSize() == 0) return Integer.MAX_VALUE;
+		for(INode node : graph.getNodes()) {
+			if(node.getConnectedNodes().isEmpty()) return Integer.MAX_VALUE;
+		}
+		
+		int diameter = 0;
+		for(INode start : graph.getNodes()) {
+			for(int distance : getDistances(graph, start).values()) {
+				if(distance < 0) return Integer.MAX_VALUE;
+				diameter = Math.max(diameter, distance);
+			}
+		}
+		return diameter;
+	}
+}
@@ -0,0 +1,74 @@
+package gory.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import gory.domain.Partition;
+
+public class PartitionBuilderTest {
+	@Test
+	public void testBallSameAsBuildWithinDistance() {
+		for(int m=1; m<=5; m++) {
+			for(Partition head : PartitionBuilder.build(m*m, m)) {
+				for(int n=m*m-1; n<=m*m+1; n++) {
+					for(int distance=0; distance<=2; distance++) {
+						List<Partition> expected = new ArrayList<>();
+						for(Partition partition : PartitionBuilder.build(n, m)) {
+							double d = head.distanceTo(partition);
+							if(d >= 0 && d <= distance) expected.add(partition);
+						}
+						assertEquals(expected, PartitionBuilder.ball(head, n, distance, null));
+					}
+				}
+			}
+		}
+
+		Partition head = new Partition("[15, 13, 11, 9, 7, 5, 3, 1]");
+		IPartitionFilter filter = partition -> partition.getOddness() == 8;
+		List<Partition> expected = new ArrayList<>();
+		for(Partition partition : PartitionBuilder.build(64, 8, filter)) {
+			if(head.distanceTo(partition) <= 2) expected.add(partition);
+		}
+		assertEquals(expected, PartitionBuilder.ball(head, 2, filter));
+	}
+	
+	@Test
+	public void testPrefixFilterSameAsFilteringAfterwards() {
+		for(int[] limits : new int[][] {{2, 15, 20}, {1, 0, 100}, {3, 24, 24}, {8, 0, 10}}) {
+			BlottoPartitionFilter filter = new BlottoPartitionFilter(limits[0], limits[1], limits[2]);
+			
+			List<Partition> expected = new ArrayList<>();
+			for(Partition partition : PartitionBuilder.build(24, 8)) {
+				if(isBlotto(partition, limits[0], limits[1], limits[2])) expected.add(partition);
+			}
+			assertEquals(expected, PartitionBuilder.build(24, 8, filter));
+			
+			Partition head = new Partition("[6, 5, 4, 3, 3, 2, 1, 0]");
+			List<Partition> expectedBall = new ArrayList<>();
+			for(Partition partition : expected) {
+				if(head.distanceTo(partition) <= 2) expectedBall.add(partition);
+			}
+			assertEquals(expectedBall, PartitionBuilder.ball(head, 2, filter));
+		}
+	}
+	
+	// the checks BlottoPartitionFilter used to make on every partition
+	private static boolean isBlotto(Partition partition, int maxNumRepetitions, int minResource, int maxResource) {
+		int resource = 0;
+		for(int i=1; i<=5; i++) {
+			resource += partition.getAt(i);
+		}
+		
+		Map<Integer, Integer> repetitionCounts = new HashMap<>();
+		for(double summand : partition.getSummands()) {
+			if(repetitionCounts.merge((int) summand, 1, Integer::sum) > maxNumRepetitions) return false;
+		}
+		return resource >= minResource && resource <= maxResource;
+	}
+}
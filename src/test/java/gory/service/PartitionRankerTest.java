@@ -0,0 +1,45 @@
+package gory.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PartitionRankerTest {
+	@Test
+	public void testSameOrderAsRecursion() {
+		for(int n=0; n<=20; n++) {
+			for(int m=1; m<=6; m++) {
+				PartitionRanker ranker = new PartitionRanker(n, m);
+				List<int[]> partitions = PartitionSpliteratorTest.enumerate(n, m);
+				assertEquals(partitions.size(), ranker.getCount());
+
+				for(int rank=0; rank<partitions.size(); rank++) {
+					int[] summands = partitions.get(rank);
+					assertArrayEquals(summands, ranker.unrank(rank));
+					assertEquals(rank, ranker.rank(summands));
+					assertEquals(rank, ranker.rank(ranker.getPartition(rank)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testLargeFamily() {
+		PartitionRanker ranker = new PartitionRanker(400, 40);
+		Random random = new Random(1);
+		for(int i=0; i<1000; i++) {
+			long rank = ranker.getRandomRank(random);
+			assertEquals(rank, ranker.rank(ranker.unrank(rank)));
+		}
+		assertEquals(ranker.getCount() - 1, ranker.rank(ranker.unrank(ranker.getCount() - 1)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNotAPartition() {
+		new PartitionRanker(10, 3).rank(5, 5, 1);
+	}
+}
@@ -0,0 +1,75 @@
+package gory.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import gory.domain.Partition;
+
+/*
+ * Samples per second of the old buildRandom and of both sampler modes, into a buffer and into partitions.
+ * Not a unit test, run it by hand: java gory.service.PartitionSamplerBenchmark [n] [m] [samples]
+ */
+public class PartitionSamplerBenchmark {
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int m = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		int samples = args.length > 2 ? Integer.parseInt(args[2]) : 1000000;
+		
+		for(int round=1; round<=3; round++) {
+			System.out.println("Round "+round);
+			
+			long start = System.nanoTime();
+			buildRandom(n, m, samples);
+			report("old buildRandom", samples, start);
+			
+			for(PartitionSampler.Mode mode : PartitionSampler.Mode.values()) {
+				PartitionSampler sampler = new PartitionSampler(n, m, mode);
+				Random random = ThreadLocalRandom.current();
+				
+				int[] buffer = new int[m * 1024];
+				start = System.nanoTime();
+				for(int i=0; i<samples; i+=1024) {
+					sampler.sample(random, buffer);
+				}
+				report(mode+" into buffer", samples, start);
+				
+				start = System.nanoTime();
+				sampler.sample(random, samples);
+				report(mode+" into partitions", samples, start);
+			}
+		}
+	}
+	
+	private static void report(String name, int samples, long start) {
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("%-30s %12.0f samples/s", name, samples / seconds));
+	}
+	
+	// PartitionBuilder.buildRandom before the sampler
+	private static List<Partition> buildRandom(int n, int m, int num) {
+		List<Partition> partitions = new ArrayList<>();
+		int cnt1 = 0;
+		while(cnt1++ < num) {
+			List<Integer> tmp = new ArrayList<>();
+			for(int j=1; j<=m-1; j++) {
+				tmp.add(ThreadLocalRandom.current().nextInt(0, n));
+			}
+			
+			Collections.sort(tmp);
+			tmp.add(0, 0);
+			tmp.add(n);
+			
+			List<Double> summands = new ArrayList<>();
+			for(int j=1; j<=m; j++) {
+				int summand = tmp.get(j) - tmp.get(j-1);
+				summands.add(1.0 * summand);
+			}
+			Partition partition = new Partition(summands);
+			partitions.add(partition);
+		}
+		return partitions;
+	}
+}
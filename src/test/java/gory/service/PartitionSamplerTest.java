@@ -0,0 +1,70 @@
+package gory.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PartitionSamplerTest {
+	@Test
+	public void testUniform() {
+		PartitionSampler sampler = new PartitionSampler(12, 4, PartitionSampler.Mode.UNIFORM);
+		PartitionRanker ranker = new PartitionRanker(12, 4);
+		
+		int perPartition = 2000;
+		int[] buffer = new int[4 * perPartition * (int) ranker.getCount()];
+		sampler.sample(new Random(7), buffer);
+		
+		long[] counts = new long[(int) ranker.getCount()];
+		for(int offset=0; offset<buffer.length; offset+=4) {
+			counts[(int) ranker.rank(new int[] {buffer[offset], buffer[offset+1], buffer[offset+2], buffer[offset+3]})]++;
+		}
+		for(long count : counts) {
+			assertTrue(""+count, Math.abs(count - perPartition) < 0.1 * perPartition);
+		}
+	}
+	
+	@Test
+	public void testComposition() {
+		// same distribution as sorted cut points
+		Random random = new Random(11);
+		Map<String, Integer> expected = new HashMap<>();
+		for(int i=0; i<200000; i++) {
+			int[] cuts = {random.nextInt(6), random.nextInt(6), random.nextInt(6)};
+			Arrays.sort(cuts);
+			int[] summands = {cuts[0], cuts[1] - cuts[0], cuts[2] - cuts[1], 6 - cuts[2]};
+			Arrays.sort(summands);
+			expected.merge(Arrays.toString(summands), 1, Integer::sum);
+		}
+		
+		PartitionSampler sampler = new PartitionSampler(6, 4, PartitionSampler.Mode.COMPOSITION);
+		int[] buffer = new int[4 * 200000];
+		sampler.sample(new Random(13), buffer);
+		Map<String, Integer> actual = new HashMap<>();
+		for(int offset=0; offset<buffer.length; offset+=4) {
+			int[] summands = {buffer[offset+3], buffer[offset+2], buffer[offset+1], buffer[offset]};
+			assertTrue(summands[0] <= summands[1] && summands[1] <= summands[2] && summands[2] <= summands[3]);
+			actual.merge(Arrays.toString(summands), 1, Integer::sum);
+		}
+		
+		assertEquals(expected.keySet(), actual.keySet());
+		for(String partition : expected.keySet()) {
+			assertTrue(partition, Math.abs(expected.get(partition) - actual.get(partition)) < 0.05 * expected.get(partition) + 100);
+		}
+	}
+	
+	@Test
+	public void testZero() {
+		for(PartitionSampler.Mode mode : PartitionSampler.Mode.values()) {
+			int[] buffer = {7, 7, 7, 7, 7};
+			new PartitionSampler(0, 3, mode).sample(new Random(3), buffer, 1);
+			assertArrayEquals(mode.name(), new int[] {7, 0, 0, 0, 7}, buffer);
+		}
+	}
+}
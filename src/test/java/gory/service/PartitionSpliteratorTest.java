@@ -0,0 +1,101 @@
+package gory.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import gory.domain.Partition;
+
+public class PartitionSpliteratorTest {
+	@Test
+	public void testSameAsRecursion() {
+		for(int n=0; n<=20; n++) {
+			for(int m=1; m<=6; m++) {
+				List<int[]> expected = enumerate(n, m);
+
+				PartitionSpliterator spliterator = new PartitionSpliterator(n, m);
+				assertEquals(expected.size(), spliterator.estimateSize());
+				for(int[] summands : expected) {
+					assertEquals(true, spliterator.advance());
+					assertArrayEquals(summands, spliterator.getSummands());
+				}
+				assertFalse(spliterator.advance());
+				assertFalse(spliterator.advance());
+			}
+		}
+	}
+
+	@Test
+	public void testSplit() {
+		List<int[]> expected = enumerate(30, 6);
+
+		PartitionSpliterator spliterator = new PartitionSpliterator(30, 6);
+		spliterator.advance();
+		spliterator.advance();
+		Spliterator<Partition> prefix = spliterator.trySplit();
+		assertNotNull(prefix);
+		assertEquals(expected.size() - 2, prefix.estimateSize() + spliterator.estimateSize());
+
+		List<int[]> actual = new ArrayList<>();
+		actual.add(expected.get(0));
+		actual.add(expected.get(1));
+		prefix.forEachRemaining(partition -> actual.add(toSummands(partition)));
+		spliterator.forEachRemaining(partition -> actual.add(toSummands(partition)));
+		assertEquals(toStrings(expected), toStrings(actual));
+
+		List<int[]> parallel = PartitionBuilder.stream(30, 6, true)
+				.map(PartitionSpliteratorTest::toSummands)
+				.collect(Collectors.toList());
+		assertEquals(toStrings(expected), toStrings(parallel));
+	}
+
+	// the recursion PartitionBuilder.build used to run
+	static List<int[]> enumerate(int n, int m) {
+		List<int[]> partitions = new ArrayList<>();
+		int min = (int) Math.ceil(1.0*n/m);
+		for(int i=n; i>=min; i--) {
+			int[] summands = new int[m];
+			summands[0] = i;
+			addNext(n, m, partitions, summands, i, 1);
+		}
+		return partitions;
+	}
+
+	private static void addNext(int n, int m, List<int[]> partitions, int[] current, int sum, int position) {
+		if(sum == n) {
+			partitions.add(current.clone());
+		} else if(position<m) {
+			int max = Math.min(current[position-1], n-sum);
+			for(int i=1; i<=max; i++) {
+				current[position] = i;
+				addNext(n, m, partitions, current, sum+i, position+1);
+				current[position] = 0;
+			}
+		}
+	}
+
+	private static int[] toSummands(Partition partition) {
+		int[] summands = new int[(int) partition.getNumberOfDigits()];
+		for(int i=0; i<summands.length; i++) {
+			summands[i] = (int) partition.getAt(i + 1);
+		}
+		return summands;
+	}
+
+	private static List<String> toStrings(List<int[]> partitions) {
+		List<String> strings = new ArrayList<>();
+		for(int[] summands : partitions) {
+			strings.add(Arrays.toString(summands));
+		}
+		return strings;
+	}
+}